@@ -0,0 +1,63 @@
+package org.example.springsecurity.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt encode and match across costs, to check what password-hashing.target-time calibrates to on a host
+ * (PasswordEncoderConfig) and how much login latency each cost step adds. Each step doubles the time, so the
+ * higher costs use fewer, longer iterations.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar BCryptBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Param({"4", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    // a wrong password runs the full hash too; login timing must not tell the two apart
+    @Benchmark
+    public boolean mismatches() {
+        return encoder.matches("wrong-password", hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BCryptBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.springsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.service.AuthMetrics;
+import org.example.springsecurity.service.JwtKeyRing;
+import org.example.springsecurity.service.JwtService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Services wired by hand the way the application context would, minus Spring: the suites measure the code
+ * on the request path, not context startup or proxies.
+ */
+final class BenchmarkFixtures {
+
+    static final AuthMetrics METRICS = new AuthMetrics(new SimpleMeterRegistry());
+
+    private BenchmarkFixtures() {
+    }
+
+    // A fresh key file per trial, so runs never pick up each other's rotated keys
+    static JwtService jwtService(SignatureAlgorithm algorithm) {
+        try {
+            Path keyFile = Files.createTempDirectory("jwt-bench").resolve("jwt-keys.json");
+            JwtKeyRing keyRing = new JwtKeyRing(keyFile, algorithm, Duration.ofDays(7), Duration.ofMinutes(2),
+                    Duration.ofHours(1), new ObjectMapper());
+            JwtService jwtService = new JwtService(keyRing);
+            ReflectionTestUtils.setField(jwtService, "metrics", METRICS);
+            return jwtService;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A base64 HS256 secret, the form the single-key JwtService read from configuration
+    static String hmacSecret() {
+        return Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    }
+
+    static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{bcrypt}unused");
+        user.setEnabled(true);
+        user.setEmailVerified(true);
+        return user;
+    }
+}
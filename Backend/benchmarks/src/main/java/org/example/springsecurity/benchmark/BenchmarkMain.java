@@ -0,0 +1,57 @@
+package org.example.springsecurity.benchmark;
+
+import org.example.springsecurity.service.JwtService;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of target/benchmarks.jar. Takes the usual JMH command line, and unless it says otherwise
+ * writes JSON results to {@code results/jmh-<application version>-<timestamp>.json} and adds the GC profiler,
+ * so every run reports bytes per op ({@code gc.alloc.rate.norm}) and two releases can be diffed, e.g. with
+ * https://jmh.morethan.io.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            options.result(resultFile(cli.getResultFormat().orElse(ResultFormatType.JSON)).toString());
+        }
+        if (cli.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static Path resultFile(ResultFormatType format) throws IOException {
+        // the application jar carries its version in the manifest; a build from the IDE has none
+        String version = JwtService.class.getPackage().getImplementationVersion();
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path dir = Files.createDirectories(Path.of("results"));
+        return dir.resolve("jmh-" + (version != null ? version : "dev") + "-" + timestamp + "."
+                + format.name().toLowerCase());
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.springsecurity.benchmark;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.example.springsecurity.config.JwtFilter;
+import org.example.springsecurity.service.JwtService;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtFilter} per request with a no-op chain behind it: a valid bearer token, a request without one and a
+ * token with a broken signature. Runs with jwt.stateless-principal on, so the principal comes from the token's
+ * claims; the database lookup it otherwise does is covered by LoginLatencyLoadTest.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar JwtFilterBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtService jwtService;
+    private JwtFilter filter;
+
+    private MockHttpServletRequest validRequest;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletRequest tamperedRequest;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(SignatureAlgorithm.HS256);
+        filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService",
+                new TokenRevocationService(100_000, 0.001, Duration.ofSeconds(5)));
+        ReflectionTestUtils.setField(filter, "metrics", BenchmarkFixtures.METRICS);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        anonymousRequest = new MockHttpServletRequest("GET", "/students");
+    }
+
+    // tokens live for three minutes, so mint fresh ones for every iteration
+    @Setup(Level.Iteration)
+    public void mintTokens() {
+        String token = jwtService.generateToken(BenchmarkFixtures.user("bench-user"));
+        validRequest = bearerRequest(token);
+        // flip a character inside the signature; the last one may only carry padding bits
+        int i = token.length() - 10;
+        tamperedRequest = bearerRequest(token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1));
+    }
+
+    @Benchmark
+    public void validToken() throws ServletException, IOException {
+        filter(validRequest);
+    }
+
+    @Benchmark
+    public void missingHeader() throws ServletException, IOException {
+        filter(anonymousRequest);
+    }
+
+    @Benchmark
+    public void tamperedToken() throws ServletException, IOException {
+        filter(tamperedRequest);
+    }
+
+    // the filter only authenticates an empty context, so clear it the way the security chain does after a request
+    // (an invocation-level teardown would cost more than the filter itself)
+    private void filter(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static MockHttpServletRequest bearerRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
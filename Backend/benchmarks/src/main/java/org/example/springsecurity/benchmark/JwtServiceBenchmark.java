@@ -0,0 +1,80 @@
+package org.example.springsecurity.benchmark;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserPrinicipal;
+import org.example.springsecurity.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The public {@link JwtService} calls on the login and filter paths: minting a token with and without the
+ * principal claims, pulling the subject out, and the full validateToken check against a loaded principal.
+ * Throughput and sampled latency per call; run through BenchmarkMain for bytes per op as well.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar JwtServiceBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String USERNAME = "bench-user";
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private User user;
+    private UserDetails principal;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(SignatureAlgorithm.forName(algorithm));
+        user = BenchmarkFixtures.user(USERNAME);
+        principal = new UserPrinicipal(user);
+    }
+
+    // tokens live for three minutes, so mint a fresh one for every iteration
+    @Setup(Level.Iteration)
+    public void mintToken() {
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateTokenForUsername() {
+        return jwtService.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public String generateTokenForUser() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUserName() {
+        return jwtService.extractUserName(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token, principal);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.springsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springsecurity.service.AuthMetrics;
+import org.example.springsecurity.service.JwtKeyRing;
+import org.example.springsecurity.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify cost per jwt.signing.algorithm, through JwtService and the key ring as in production.
+ * HS256 is the cheapest but needs the shared secret to verify; ES256 and RS256 let other services verify with
+ * the public key from /.well-known/jwks.json.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar JwtSigningBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSigningBenchmark {
+
+    private static final String USERNAME = "bench-user";
+
+    @Param({"HS256", "ES256", "RS256"})
+    private SignatureAlgorithm algorithm;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path keyFile = Files.createTempDirectory("jwt-bench").resolve("jwt-keys.json");
+        JwtKeyRing keyRing = new JwtKeyRing(keyFile, algorithm, Duration.ofDays(7), Duration.ofMinutes(2),
+                Duration.ofHours(1), new ObjectMapper());
+        jwtService = new JwtService(keyRing);
+        ReflectionTestUtils.setField(jwtService, "metrics", new AuthMetrics(new SimpleMeterRegistry()));
+    }
+
+    // tokens live for three minutes, so mint a fresh one for every iteration
+    @Setup(Level.Iteration)
+    public void mintToken() {
+        token = jwtService.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return jwtService.verify(token).isPresent();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtSigningBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
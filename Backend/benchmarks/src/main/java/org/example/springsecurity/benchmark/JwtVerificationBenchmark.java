@@ -0,0 +1,101 @@
+package org.example.springsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springsecurity.service.AuthMetrics;
+import org.example.springsecurity.service.JwtKeyRing;
+import org.example.springsecurity.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost of the filter path: the old three-parse flow (extractUserName + validateToken,
+ * each rebuilding the parser and re-decoding the secret) against the single {@link JwtService#verify(String)}.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar JwtVerificationBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String USERNAME = "bench-user";
+
+    private JwtService jwtService;
+    private String token;
+
+    private String legacySecret;
+    private String legacyToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path keyFile = Files.createTempDirectory("jwt-bench").resolve("jwt-keys.json");
+        JwtKeyRing keyRing = new JwtKeyRing(keyFile, SignatureAlgorithm.HS256, Duration.ofDays(7), Duration.ofMinutes(2), Duration.ofHours(1),
+                new ObjectMapper());
+        jwtService = new JwtService(keyRing);
+        ReflectionTestUtils.setField(jwtService, "metrics", new AuthMetrics(new SimpleMeterRegistry()));
+        legacySecret = BenchmarkFixtures.hmacSecret();
+    }
+
+    // tokens live for three minutes, so mint fresh ones for every iteration
+    @Setup(Level.Iteration)
+    public void mintTokens() {
+        token = jwtService.generateToken(USERNAME);
+        long now = System.currentTimeMillis();
+        legacyToken = Jwts.builder()
+                .setSubject(USERNAME)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 1000 * 60 * 3))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacySecret)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyParse(legacyToken).getSubject();
+        // validateToken: extractUserName again, then isTokenExpired
+        return legacyParse(legacyToken).getSubject().equals(username)
+                && !legacyParse(legacyToken).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleVerify() {
+        return jwtService.verify(token)
+                .map(verified -> USERNAME.equals(verified.subject()))
+                .orElse(false);
+    }
+
+    private Claims legacyParse(String jwt) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacySecret)))
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.springsecurity.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load test for POST /auth/login, used to compare platform against virtual request threads.
+ * Start the application once per mode and run this against it with the same settings:
+ *
+ *   java -jar app.jar --spring.threads.virtual.enabled=false
+ *   java -jar app.jar --spring.threads.virtual.enabled=true
+ *
+ * Run from Backend/benchmarks after mvn package:
+ *   java -cp target/benchmarks.jar org.example.springsecurity.benchmark.LoginLatencyLoadTest \
+ *     http://localhost:8080 200 60 user@example.com password
+ *
+ * Arguments: base URL, concurrent clients, duration in seconds, email, password. The account should exist
+ * and be verified so every request goes through BCrypt, the user lookup and OTP issuance. Prints
+ * throughput, the status code mix and p50/p90/p99/max latency; the first 10% of the run is warm-up.
+ */
+public class LoginLatencyLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        String email = args.length > 3 ? args[3] : "loadtest@example.com";
+        String password = args.length > 4 ? args[4] : "password";
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .build();
+
+        long start = System.nanoTime();
+        long warmupEnd = start + Duration.ofSeconds(seconds).toNanos() / 10;
+        long end = start + Duration.ofSeconds(seconds).toNanos();
+
+        List<long[]> samplesPerClient = new ArrayList<>();
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicInteger errors = new AtomicInteger();
+
+        try (ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                long[] samples = new long[1 << 16];
+                samplesPerClient.add(samples);
+                loaders.submit(() -> {
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (sent >= warmupEnd && count < samples.length - 1) {
+                            samples[++count] = System.nanoTime() - sent;
+                        }
+                    }
+                    samples[0] = count;
+                });
+            }
+        }
+
+        long[] latencies = samplesPerClient.stream()
+                .flatMapToLong(samples -> Arrays.stream(samples, 1, (int) samples[0] + 1))
+                .sorted()
+                .toArray();
+        double measuredSeconds = (end - warmupEnd) / 1e9;
+
+        System.out.printf("clients=%d duration=%ds requests=%d errors=%d throughput=%.1f req/s%n",
+                clients, seconds, latencies.length, errors.get(), latencies.length / measuredSeconds);
+        System.out.println("status codes: " + new TreeMap<>(statuses));
+        if (latencies.length > 0) {
+            System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                    percentile(latencies, 50), percentile(latencies, 90),
+                    percentile(latencies, 99), latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
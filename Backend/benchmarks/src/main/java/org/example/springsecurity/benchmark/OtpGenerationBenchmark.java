@@ -0,0 +1,46 @@
+package org.example.springsecurity.benchmark;
+
+import org.example.springsecurity.service.OtpService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OtpService#generateOtp()}: six SecureRandom digits. Run single-threaded and with four threads,
+ * since every issue on the node shares the service's one SecureRandom.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar OtpGenerationBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpGenerationBenchmark {
+
+    // generateOtp touches none of the injected collaborators
+    private final OtpService otpService = new OtpService();
+
+    @Benchmark
+    public String generateOtp() {
+        return otpService.generateOtp();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateOtpContended() {
+        return otpService.generateOtp();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpGenerationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
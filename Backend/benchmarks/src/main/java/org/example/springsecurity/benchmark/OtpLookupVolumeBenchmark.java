@@ -0,0 +1,117 @@
+package org.example.springsecurity.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP verify latency as otp_records grows. Seeds a scratch copy of the table (otp_records_bench) with
+ * {@code rows} rows spread over 100k emails, most of them used or expired like a long-running table,
+ * and times the verify and has-valid-OTP queries with and without the composite lookup index.
+ * With the index the latency should stay flat from 100k to millions of rows.
+ *
+ * Needs a PostgreSQL database:
+ *   -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/otp_bench -Dbench.jdbc.user=... -Dbench.jdbc.password=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpLookupVolumeBenchmark {
+
+    private static final int EMAILS = 100_000;
+
+    @Param({"100000", "1000000", "5000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement verify;
+    private PreparedStatement hasValid;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/otp_bench"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS otp_records_bench");
+            statement.execute("CREATE TABLE otp_records_bench (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "email VARCHAR(255) NOT NULL, otp VARCHAR(255) NOT NULL, " +
+                    "expiry_time TIMESTAMP(6) NOT NULL, used BOOLEAN NOT NULL, " +
+                    "created_at TIMESTAMP(6) NOT NULL, type VARCHAR(255) NOT NULL)");
+            // one live code in twenty, the rest consumed or expired over the last week
+            statement.execute("INSERT INTO otp_records_bench (email, otp, expiry_time, used, created_at, type) " +
+                    "SELECT 'user' || (n % " + EMAILS + ") || '@example.com', " +
+                    "lpad((n % 1000000)::text, 6, '0'), " +
+                    "CASE WHEN n % 20 = 0 THEN now() + interval '5 minutes' " +
+                    "     ELSE now() - (n % 10080) * interval '1 minute' END, " +
+                    "n % 20 <> 0 AND n % 3 = 0, " +
+                    "now() - (n % 10080) * interval '1 minute', " +
+                    "CASE WHEN n % 2 = 0 THEN 'LOGIN' ELSE 'REGISTRATION' END " +
+                    "FROM generate_series(1, " + rows + ") AS n");
+            if (indexed) {
+                statement.execute("CREATE INDEX idx_otp_records_bench_lookup " +
+                        "ON otp_records_bench (email, type, used, expiry_time)");
+            }
+            statement.execute("ANALYZE otp_records_bench");
+        }
+
+        verify = connection.prepareStatement("SELECT id FROM otp_records_bench " +
+                "WHERE email = ? AND type = ? AND otp = ? AND used = false AND expiry_time > now()");
+        hasValid = connection.prepareStatement("SELECT id FROM otp_records_bench " +
+                "WHERE email = ? AND used = false AND expiry_time > now() ORDER BY created_at DESC LIMIT 1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS otp_records_bench");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean verifyOtp() throws SQLException {
+        int n = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        verify.setString(1, "user" + (n % EMAILS) + "@example.com");
+        verify.setString(2, n % 2 == 0 ? "LOGIN" : "REGISTRATION");
+        verify.setString(3, String.format("%06d", n % 1_000_000));
+        try (ResultSet resultSet = verify.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    @Benchmark
+    public boolean hasValidOtp() throws SQLException {
+        hasValid.setString(1, "user" + ThreadLocalRandom.current().nextInt(EMAILS) + "@example.com");
+        try (ResultSet resultSet = hasValid.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpLookupVolumeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
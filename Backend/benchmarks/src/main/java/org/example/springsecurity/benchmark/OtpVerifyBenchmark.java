@@ -0,0 +1,98 @@
+package org.example.springsecurity.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.repo.InMemoryOtpStore;
+import org.example.springsecurity.service.AuthMetrics;
+import org.example.springsecurity.service.OtpAttemptTracker;
+import org.example.springsecurity.service.OtpHasher;
+import org.example.springsecurity.service.OtpIssueCooldown;
+import org.example.springsecurity.service.OtpService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verify latency and allocation per call with hashed OTPs: the HMAC compare on its own against the plaintext
+ * equality it replaced, and a full {@link OtpService#verifyOtp(String, String, OtpRecord.OtpType)} on the in-memory store so the
+ * database does not dominate. Allocation is reported by the GC profiler as gc.alloc.rate.norm (bytes per op).
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar OtpVerifyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OtpVerifyBenchmark {
+
+    private static final String EMAIL = "bench@example.com";
+    private static final String OTP = "123456";
+    private static final OtpRecord.OtpType TYPE = OtpRecord.OtpType.LOGIN;
+
+    private OtpHasher hasher;
+    private String digest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hasher = new OtpHasher("", "jdbc", true);
+        digest = hasher.digest(EMAIL, TYPE, OTP);
+    }
+
+    // separate state so the per-invocation re-issue only applies to verifyOtp
+    @State(Scope.Thread)
+    public static class LiveCode {
+        private InMemoryOtpStore store;
+        private OtpService otpService;
+        private String digest;
+
+        @Setup(Level.Trial)
+        public void setUp(OtpVerifyBenchmark benchmark) {
+            digest = benchmark.digest;
+            store = new InMemoryOtpStore(1000, 512);
+            otpService = new OtpService();
+            ReflectionTestUtils.setField(otpService, "otpStore", store);
+            ReflectionTestUtils.setField(otpService, "otpHasher", benchmark.hasher);
+            ReflectionTestUtils.setField(otpService, "metrics", new AuthMetrics(new SimpleMeterRegistry()));
+            ReflectionTestUtils.setField(otpService, "issueCooldown", new OtpIssueCooldown(Duration.ofSeconds(30), 1000));
+            ReflectionTestUtils.setField(otpService, "attemptTracker", new OtpAttemptTracker(5, Duration.ofMinutes(5), 1000));
+        }
+
+        // a successful verify consumes the code, so every invocation needs a fresh one
+        @Setup(Level.Invocation)
+        public void issue() {
+            store.issue(EMAIL, TYPE, digest, Duration.ofMinutes(5));
+        }
+    }
+
+    @Benchmark
+    public boolean plaintextEquals() {
+        return OTP.equals(new String(OTP.toCharArray()));
+    }
+
+    @Benchmark
+    public boolean hmacMatches() {
+        return hasher.matches(EMAIL, TYPE, OTP, digest);
+    }
+
+    @Benchmark
+    public boolean verifyOtp(LiveCode live) {
+        return live.otpService.verifyOtp(EMAIL, OTP, TYPE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpVerifyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.springsecurity.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.example.springsecurity.service.SmtpConnectionPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP email throughput (messages/sec) against an in-process GreenMail SMTP server: one connection per message,
+ * as JavaMailSender.send does, versus a batch over a pooled connection. A local server has no TLS or network
+ * latency, so real-world gains against a remote relay are larger than what this shows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmtpThroughputBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    private GreenMail smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        smtpServer = new GreenMail(ServerSetupTest.SMTP);
+        smtpServer.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        pool = new SmtpConnectionPool(mailSender, 1, 0, Duration.ofMinutes(1), Duration.ofSeconds(5));
+    }
+
+    // GreenMail keeps every message in memory
+    @Setup(Level.Iteration)
+    public void purge() throws Exception {
+        smtpServer.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        smtpServer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerMessage() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("noreply@example.com");
+            message.setTo("user" + i + "@example.com");
+            message.setSubject("Your OTP Code");
+            message.setText("Your OTP code for login is: 123456");
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Exception> pooledBatch() throws Exception {
+        List<MimeMessage> messages = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("noreply@example.com"));
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Your OTP Code");
+            message.setText("Your OTP code for login is: 123456");
+            messages.add(message);
+        }
+        return pool.sendBatch(messages);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SmtpThroughputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
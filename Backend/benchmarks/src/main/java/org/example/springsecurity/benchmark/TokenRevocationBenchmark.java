@@ -0,0 +1,74 @@
+package org.example.springsecurity.benchmark;
+
+import org.example.springsecurity.service.TokenRevocationService;
+import org.example.springsecurity.service.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-request revocation check with {@code revokedTokens} entries in the list: a token that was never
+ * revoked (the common case, answered by the Bloom filter) against a revoked one (filter hit plus exact set).
+ * The GC profiler's gc.alloc.rate.norm should read 0 B/op for both.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar TokenRevocationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenRevocationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int revokedTokens;
+
+    private TokenRevocationService revocations;
+    private VerifiedToken liveToken;
+    private VerifiedToken revokedToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        revocations = new TokenRevocationService(100000, 0.001, Duration.ofSeconds(5));
+        for (int i = 0; i < revokedTokens; i++) {
+            revokedToken = token("user" + i);
+            revocations.revoke(revokedToken);
+        }
+        // one watermark, so the watermark map is not trivially empty
+        revocations.revokeTokensIssuedBefore("user0", Instant.now().minusSeconds(60));
+        liveToken = token("user1");
+    }
+
+    @Benchmark
+    public boolean liveToken() {
+        return revocations.isRevoked(liveToken);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return revocations.isRevoked(revokedToken);
+    }
+
+    // random UUID jti, as JwtService mints them
+    private static VerifiedToken token(String subject) {
+        Instant now = Instant.now();
+        return new VerifiedToken(UUID.randomUUID().toString(), subject, now, now.plusSeconds(180), null, null, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TokenRevocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.springsecurity.benchmark;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.example.springsecurity.controller.AuthController;
+import org.example.springsecurity.dto.ApiResponse;
+import org.example.springsecurity.dto.RegisterRequest;
+import org.example.springsecurity.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The 400 path for a rejected registration body: {@link GlobalExceptionHandler#handleValidationExceptions}
+ * mapping field errors to the response body on its own, and together with the Bean Validation pass over
+ * {@link RegisterRequest} that produces them.
+ *
+ * Run from Backend/benchmarks after mvn package: java -jar target/benchmarks.jar ValidationErrorBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationErrorBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    private ValidatorFactory validatorFactory;
+    private SpringValidatorAdapter validator;
+    private MethodParameter parameter;
+    private RegisterRequest invalidRequest;
+    private MethodArgumentNotValidException exception;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = new SpringValidatorAdapter(validatorFactory.getValidator());
+        parameter = new MethodParameter(AuthController.class.getMethod("register", RegisterRequest.class), 0);
+
+        // every field fails: username too short, malformed email, password too short
+        invalidRequest = new RegisterRequest();
+        invalidRequest.setUsername("ab");
+        invalidRequest.setEmail("not-an-email");
+        invalidRequest.setPassword("123");
+        exception = validate();
+        if (exception.getErrorCount() != 3) {
+            throw new IllegalStateException("Expected 3 field errors, got " + exception.getErrorCount());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Map<String, String>>> mapFieldErrors() {
+        return handler.handleValidationExceptions(exception);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Map<String, String>>> validateAndMap() {
+        return handler.handleValidationExceptions(validate());
+    }
+
+    private MethodArgumentNotValidException validate() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalidRequest, "registerRequest");
+        validator.validate(invalidRequest, bindingResult);
+        return new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ValidationErrorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,8 +1,10 @@
 package org.example.springsecurity.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -13,8 +15,15 @@ import java.util.concurrent.Executor;
 @EnableScheduling
 public class AsyncConfig {
 
+    // With virtual threads every task gets its own thread; JDBC and SMTP are capped by VirtualThreadGuardConfig
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("EmailAsync-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -23,4 +32,19 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // BCrypt is pure CPU: one thread per core (platform threads in either mode), and a short queue that rejects instead of piling up work
+    @Bean(name = "passwordHashExecutor")
+    public Executor passwordHashExecutor(
+            @Value("${password-hashing.threads:0}") int threads,
+            @Value("${password-hashing.queue-capacity:100}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("PasswordHash-");
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
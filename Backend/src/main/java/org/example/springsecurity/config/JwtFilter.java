@@ -1,15 +1,24 @@
 package org.example.springsecurity.config;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserPrinicipal;
+import org.example.springsecurity.service.AuthMetrics;
 import org.example.springsecurity.service.JwtService;
 
 import org.example.springsecurity.service.MyUserDetailsService;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.example.springsecurity.service.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -17,36 +26,65 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
+
 @Component
+@Profile("!reactive")
 public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     JwtService jwtService;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
     @Autowired
     ApplicationContext applicationContext;
 
-    @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String authHeader = request.getHeader("Authorization");
-        String token=null;
-        String username=null;
+    @Autowired
+    AuthMetrics metrics;
 
-        if(authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username=jwtService.extractUserName(token);
+    // When enabled, tokens carrying principal claims are trusted as-is instead of reloading the user
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // times this filter's own work; the rest of the chain shows up in http.server.requests
+        Timer.Sample sample = metrics.start();
+        try {
+            String authHeader = request.getHeader("Authorization");
 
-        }
-        if(username!=null && SecurityContextHolder.getContext().getAuthentication()==null) {
-            UserDetails userDetails = applicationContext.getBean(MyUserDetailsService.class).loadUserByUsername(username);
-            if(jwtService.validateToken(token,userDetails))
-            {
-                UsernamePasswordAuthenticationToken authToken=
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails((request)));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            if(authHeader != null && authHeader.startsWith("Bearer ")
+                    && SecurityContextHolder.getContext().getAuthentication()==null) {
+                // one parse covers signature, expiry and subject extraction
+                Optional<VerifiedToken> verified = jwtService.verify(authHeader.substring(7));
+                if(verified.isPresent() && !tokenRevocationService.isRevoked(verified.get())) {
+                    UserDetails userDetails = resolvePrincipal(verified.get());
+                    if(userDetails.isEnabled() && verified.get().subject().equals(userDetails.getUsername()))
+                    {
+                        UsernamePasswordAuthenticationToken authToken=
+                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails((request)));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    }
+                }
             }
+        } finally {
+            // recorded for requests that fail here too, e.g. a token whose user no longer exists
+            sample.stop(metrics.jwtFilter());
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (statelessPrincipal && token.hasPrincipalClaims()) {
+            User user = new User();
+            user.setUsername(token.subject());
+            user.setEnabled(token.enabled());
+            user.setEmailVerified(token.emailVerified());
+            return new UserPrinicipal(user, token.roles().stream().map(SimpleGrantedAuthority::new).toList());
+        }
+        // tokens minted before principal claims existed still go through the user lookup
+        return applicationContext.getBean(MyUserDetailsService.class).loadUserByUsername(token.subject());
+    }
 }
@@ -0,0 +1,63 @@
+package org.example.springsecurity.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The application's single {@link PasswordEncoder}. New hashes are written as {@code {bcrypt}<hash>} at a cost
+ * chosen for this host, while hashes from before the prefix existed keep matching as plain BCrypt.
+ * {@link PasswordEncoder#upgradeEncoding(String)} only reports hashes below the current cost, so replicas that
+ * calibrate to different costs never rewrite each other's hashes downwards.
+ */
+@Configuration
+@Slf4j
+public class PasswordEncoderConfig {
+
+    private static final String ENCODING_ID = "bcrypt";
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${password-hashing.bcrypt.strength:0}") int strength,
+            @Value("${password-hashing.bcrypt.min-strength:12}") int minStrength,
+            @Value("${password-hashing.bcrypt.max-strength:14}") int maxStrength,
+            @Value("${password-hashing.target-time:PT0.25S}") Duration targetTime) {
+        int cost = strength > 0 ? strength : calibrate(minStrength, maxStrength, targetTime);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(ENCODING_ID,
+                Map.of(ENCODING_ID, new BCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    // BCrypt time doubles with each cost step, so one timed hash at the minimum is enough to extrapolate
+    private int calibrate(int minStrength, int maxStrength, Duration targetTime) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD); // warm-up
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        int cost = minStrength;
+        long estimate = bestNanos;
+        while (cost < maxStrength && estimate * 2 <= targetTime.toNanos()) {
+            cost++;
+            estimate *= 2;
+        }
+        log.info("BCrypt cost {} selected (cost {} took {} ms, target {} ms)",
+                cost, minStrength, bestNanos / 1_000_000, targetTime.toMillis());
+        return cost;
+    }
+}
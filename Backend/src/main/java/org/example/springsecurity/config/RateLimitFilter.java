@@ -0,0 +1,218 @@
+package org.example.springsecurity.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.springsecurity.dto.ApiResponse;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.service.RateLimitRule;
+import org.example.springsecurity.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throttles the OTP issuing and verifying endpoints before any BCrypt, database or SMTP work happens.
+ * Every request spends a token from its client IP's bucket, then one from the bucket for its email and
+ * OTP type (issue and verify buckets are separate). An empty bucket answers 429 with Retry-After.
+ */
+@Component
+@Profile("!reactive")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // DTOs on these endpoints are a few hundred bytes; anything far larger is not a legitimate client
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private enum Kind { ISSUE, VERIFY }
+
+    // type == null: taken from the request body (resend-otp), defaulting to LOGIN like the controller
+    private record Endpoint(Kind kind, OtpRecord.OtpType type) {
+    }
+
+    private static final Map<String, Endpoint> ENDPOINTS = Map.of(
+            "/auth/register", new Endpoint(Kind.ISSUE, OtpRecord.OtpType.REGISTRATION),
+            "/auth/login", new Endpoint(Kind.ISSUE, OtpRecord.OtpType.LOGIN),
+            "/auth/resend-otp", new Endpoint(Kind.ISSUE, null),
+            "/auth/forgot-password", new Endpoint(Kind.ISSUE, OtpRecord.OtpType.PASSWORD_RESET),
+            "/auth/verify-registration", new Endpoint(Kind.VERIFY, OtpRecord.OtpType.REGISTRATION),
+            "/auth/verify-login", new Endpoint(Kind.VERIFY, OtpRecord.OtpType.LOGIN),
+            "/auth/reset-password", new Endpoint(Kind.VERIFY, OtpRecord.OtpType.PASSWORD_RESET)
+    );
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    private final RateLimitRule ipRule;
+    private final RateLimitRule issueRule;
+    private final RateLimitRule verifyRule;
+
+    public RateLimitFilter(@Value("${rate-limit.ip.capacity:20}") int ipCapacity,
+                           @Value("${rate-limit.ip.refill-interval:PT3S}") Duration ipRefill,
+                           @Value("${rate-limit.otp-issue.capacity:3}") int issueCapacity,
+                           @Value("${rate-limit.otp-issue.refill-interval:PT1M}") Duration issueRefill,
+                           @Value("${rate-limit.otp-verify.capacity:5}") int verifyCapacity,
+                           @Value("${rate-limit.otp-verify.refill-interval:PT1M}") Duration verifyRefill) {
+        this.ipRule = new RateLimitRule(ipCapacity, ipRefill);
+        this.issueRule = new RateLimitRule(issueCapacity, issueRefill);
+        this.verifyRule = new RateLimitRule(verifyCapacity, verifyRefill);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Endpoint endpoint = endpoint(request);
+
+        // behind a proxy the remote address comes from X-Forwarded-For (server.forward-headers-strategy)
+        long retryAfterNanos = rateLimiter.tryAcquire("ip:" + request.getRemoteAddr(), ipRule);
+        if (retryAfterNanos > 0) {
+            reject(response, retryAfterNanos);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+            return;
+        }
+
+        JsonNode json = parse(body);
+        String email = json.path("email").asText("").trim().toLowerCase(Locale.ROOT);
+        if (!email.isEmpty()) {
+            OtpRecord.OtpType type = endpoint.type() != null ? endpoint.type() : requestedType(json);
+            RateLimitRule rule = endpoint.kind() == Kind.ISSUE ? issueRule : verifyRule;
+            retryAfterNanos = rateLimiter.tryAcquire(endpoint.kind() + ":" + type + ":" + email, rule);
+            if (retryAfterNanos > 0) {
+                reject(response, retryAfterNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private static Endpoint endpoint(HttpServletRequest request) {
+        return ENDPOINTS.get(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private JsonNode parse(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            // malformed JSON is rejected by the controller; only the IP bucket applies
+            return objectMapper.missingNode();
+        }
+    }
+
+    // Unknown types share the LOGIN bucket so varying the type cannot dodge the per-email limit
+    private static OtpRecord.OtpType requestedType(JsonNode json) {
+        String type = json.path("type").asText("").toUpperCase(Locale.ROOT);
+        for (OtpRecord.OtpType candidate : OtpRecord.OtpType.values()) {
+            if (candidate.name().equals(type)) {
+                return candidate;
+            }
+        }
+        return OtpRecord.OtpType.LOGIN;
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos) throws IOException {
+        long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please retry later");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(false, message, null));
+    }
+
+    // Replays the body already read for the email so the controller can still bind it
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.springsecurity.config;
+
+import org.example.springsecurity.service.ConcurrencyGuard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Active with spring.threads.virtual.enabled=true. Tomcat, @Async and scheduled work then run on virtual
+ * threads, so nothing bounds how many of them hit the database or the mail server at once. These guards
+ * put that bound back: JDBC connections and unpooled SMTP sends each need a permit first.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadGuardConfig {
+
+    @Bean
+    public ConcurrencyGuard smtpConcurrencyGuard(
+            @Value("${virtual-threads.smtp.max-concurrency:${mail.pool.size:2}}") int maxConcurrency,
+            @Value("${virtual-threads.smtp.acquire-timeout:PT30S}") Duration acquireTimeout) {
+        return new ConcurrencyGuard("smtp", maxConcurrency, acquireTimeout);
+    }
+
+    // static so the DataSource is wrapped before anything else asks for it
+    @Bean
+    public static BeanPostProcessor guardedDataSourcePostProcessor(
+            @Value("${virtual-threads.jdbc.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${virtual-threads.jdbc.acquire-timeout:PT5S}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof GuardedDataSource)) {
+                    return new GuardedDataSource(dataSource, new ConcurrencyGuard("jdbc", maxConcurrency, acquireTimeout));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Holds a permit for as long as a connection is checked out. Waiting on the semaphore is cheap for a
+     * virtual thread, and callers that time out fail fast instead of queueing inside Hikari.
+     */
+    static class GuardedDataSource extends DelegatingDataSource {
+
+        private final ConcurrencyGuard guard;
+
+        GuardedDataSource(DataSource target, ConcurrencyGuard guard) {
+            super(target);
+            this.guard = guard;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                guard.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                guard.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!guard.tryAcquire()) {
+                    throw new SQLTransientConnectionException(
+                            "No database connection available within " + guard.getAcquireTimeout());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+            }
+        }
+
+        private Connection releasingOnClose(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            guard.release();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
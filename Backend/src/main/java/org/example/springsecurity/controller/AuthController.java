@@ -3,16 +3,31 @@ package org.example.springsecurity.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.example.springsecurity.dto.*;
+import org.example.springsecurity.exception.DuplicateUserException;
+import org.example.springsecurity.exception.ServiceBusyException;
 import org.example.springsecurity.model.OtpRecord;
 import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserCredentials;
 import org.example.springsecurity.service.JwtService;
 import org.example.springsecurity.service.OtpService;
+import org.example.springsecurity.service.RefreshTokenService;
+import org.example.springsecurity.service.TokenRevocationService;
 import org.example.springsecurity.service.Userservice;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("/auth")
 @Slf4j
 public class AuthController {
@@ -26,41 +41,49 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
 
-    @PostMapping("/register")
-    public ResponseEntity<ApiResponse<String>> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            // Check if user already exists
-            if (userService.existsByEmail(request.getEmail())) {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Email already registered", null));
-            }
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
-            if (userService.existsByUsername(request.getUsername())) {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Username already taken", null));
-            }
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
-            // Create user
-            User user = userService.createUser(request);
+    // Picks up the database and OTP work once a password hash completes, keeping it off the hash pool
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
 
-            // Send OTP for email verification
-            otpService.sendOtp(user.getEmail(), OtpRecord.OtpType.REGISTRATION);
+    @PostMapping("/register")
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> register(@Valid @RequestBody RegisterRequest request) {
+        try {
+            return userService.encodePassword(request.getPassword())
+                    .thenApplyAsync(encodedPassword -> {
+                        // Create user; an existing email or username is reported by the insert itself
+                        User user;
+                        try {
+                            user = userService.createUser(request, encodedPassword);
+                        } catch (DuplicateUserException e) {
+                            return ResponseEntity.badRequest()
+                                    .body(new ApiResponse<String>(false, e.getMessage(), null));
+                        }
 
-            return ResponseEntity.ok(new ApiResponse<>(true,
-                    "Registration successful. Please check your email for OTP verification.",
-                    null));
+                        // Send OTP for email verification
+                        otpService.sendOtp(user.getEmail(), OtpRecord.OtpType.REGISTRATION);
+
+                        return ResponseEntity.ok(new ApiResponse<String>(true,
+                                "Registration successful. Please check your email for OTP verification.",
+                                null));
+                    }, taskExecutor)
+                    .exceptionally(e -> asyncFailure(e, "Registration failed"));
 
         } catch (Exception e) {
-            log.error("Registration failed", e);
-            return ResponseEntity.internalServerError()
-                    .body(new ApiResponse<>(false, "Registration failed", null));
+            return CompletableFuture.completedFuture(asyncFailure(e, "Registration failed"));
         }
     }
 
     @PostMapping("/verify-registration")
     public ResponseEntity<ApiResponse<String>> verifyRegistration(@Valid @RequestBody OtpVerificationRequest request) {
         try {
-            if (otpService.verifyOtp(request.getEmail(), request.getOtp())) {
+            if (otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.REGISTRATION)) {
                 userService.verifyUserEmail(request.getEmail());
                 return ResponseEntity.ok(new ApiResponse<>(true,
                         "Email verified successfully. You can now login.", null));
@@ -76,45 +99,49 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<String>> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> login(@Valid @RequestBody LoginRequest request) {
         try {
             // Validate user credentials
-            if (!userService.validateCredentials(request.getEmail(), request.getPassword())) {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Invalid email or password", null));
-            }
+            return userService.authenticate(request.getEmail(), request.getPassword())
+                    .thenApplyAsync(credentials -> {
+                        if (credentials.isEmpty()) {
+                            return ResponseEntity.badRequest()
+                                    .body(new ApiResponse<String>(false, "Invalid email or password", null));
+                        }
 
-            // Check if email is verified
-            if (!userService.isEmailVerified(request.getEmail())) {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Email not verified. Please verify your email first.", null));
-            }
+                        // Check if email is verified
+                        if (!credentials.get().isEmailVerified()) {
+                            return ResponseEntity.badRequest()
+                                    .body(new ApiResponse<String>(false, "Email not verified. Please verify your email first.", null));
+                        }
 
-            // Send OTP for login
-            otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.LOGIN);
+                        // Send OTP for login
+                        otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.LOGIN);
 
-            return ResponseEntity.ok(new ApiResponse<>(true,
-                    "OTP sent to your email. Please verify to complete login.", null));
+                        return ResponseEntity.ok(new ApiResponse<String>(true,
+                                "OTP sent to your email. Please verify to complete login.", null));
+                    }, taskExecutor)
+                    .exceptionally(e -> asyncFailure(e, "Login failed"));
 
         } catch (Exception e) {
-            log.error("Login failed", e);
-            return ResponseEntity.internalServerError()
-                    .body(new ApiResponse<>(false, "Login failed", null));
+            return CompletableFuture.completedFuture(asyncFailure(e, "Login failed"));
         }
     }
 
     @PostMapping("/verify-login")
     public ResponseEntity<ApiResponse<LoginResponse>> verifyLogin(@Valid @RequestBody OtpVerificationRequest request) {
         try {
-            if (otpService.verifyOtp(request.getEmail(), request.getOtp())) {
+            if (otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.LOGIN)) {
                 // Generate JWT token
-                User user = userService.getUserByEmail(request.getEmail());
-                String token = jwtService.generateToken(user.getUsername());
+                UserCredentials user = userService.findCredentialsByEmail(request.getEmail())
+                        .orElseThrow(() -> new RuntimeException("User not found with email: " + request.getEmail()));
+                String token = jwtService.generateToken(user.toUser());
 
                 LoginResponse loginResponse = new LoginResponse();
                 loginResponse.setToken(token);
-                loginResponse.setUsername(user.getUsername());
-                loginResponse.setEmail(user.getEmail());
+                loginResponse.setRefreshToken(refreshTokenService.issue(user.id()));
+                loginResponse.setUsername(user.username());
+                loginResponse.setEmail(user.email());
 
                 return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", loginResponse));
             } else {
@@ -128,6 +155,47 @@ public class AuthController {
         }
     }
 
+    // New access token without the password and OTP round; the presented refresh token is used up
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<LoginResponse>> refresh(@Valid @RequestBody RefreshRequest request) {
+        try {
+            return refreshTokenService.rotate(request.getRefreshToken())
+                    .map(rotation -> {
+                        LoginResponse loginResponse = new LoginResponse();
+                        loginResponse.setToken(rotation.accessToken());
+                        loginResponse.setRefreshToken(rotation.refreshToken());
+                        loginResponse.setUsername(rotation.user().getUsername());
+                        loginResponse.setEmail(rotation.user().getEmail());
+                        return ResponseEntity.ok(new ApiResponse<>(true, "Token refreshed", loginResponse));
+                    })
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(new ApiResponse<>(false, "Invalid or expired refresh token", null)));
+        } catch (Exception e) {
+            log.error("Token refresh failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(new ApiResponse<>(false, "Token refresh failed", null));
+        }
+    }
+
+    // Revokes the bearer access token and, if given, the session of the refresh token; always succeeds
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<String>> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                      @RequestBody(required = false) LogoutRequest request) {
+        try {
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                jwtService.verify(authHeader.substring(7)).ifPresent(tokenRevocationService::revoke);
+            }
+            if (request != null && request.getRefreshToken() != null && !request.getRefreshToken().isBlank()) {
+                refreshTokenService.revoke(request.getRefreshToken());
+            }
+            return ResponseEntity.ok(new ApiResponse<>(true, "Logged out", null));
+        } catch (Exception e) {
+            log.error("Logout failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(new ApiResponse<>(false, "Logout failed", null));
+        }
+    }
+
     @PostMapping("/resend-otp")
     public ResponseEntity<ApiResponse<String>> resendOtp(@Valid @RequestBody ResendOtpRequest request) {
         try {
@@ -159,7 +227,7 @@ public class AuthController {
                         .body(new ApiResponse<>(false, "Email not found", null));
             }
 
-            otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.LOGIN);
+            otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.PASSWORD_RESET);
 
             return ResponseEntity.ok(new ApiResponse<>(true,
                     "Password reset OTP sent to your email", null));
@@ -172,19 +240,38 @@ public class AuthController {
     }
 
     @PostMapping("/reset-password")
-    public ResponseEntity<ApiResponse<String>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
         try {
-            if (otpService.verifyOtp(request.getEmail(), request.getOtp())) {
-                userService.updatePassword(request.getEmail(), request.getNewPassword());
-                return ResponseEntity.ok(new ApiResponse<>(true, "Password reset successfully", null));
-            } else {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Invalid or expired OTP", null));
-            }
+            // Hash before consuming the OTP, so a busy hash pool (503) leaves the reset code usable for a retry
+            return userService.encodePassword(request.getNewPassword())
+                    .thenApplyAsync(encodedPassword -> {
+                        if (!otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.PASSWORD_RESET)) {
+                            return ResponseEntity.badRequest()
+                                    .body(new ApiResponse<String>(false, "Invalid or expired OTP", null));
+                        }
+                        userService.updatePassword(request.getEmail(), encodedPassword);
+                        return ResponseEntity.ok(new ApiResponse<String>(true, "Password reset successfully", null));
+                    }, taskExecutor)
+                    .exceptionally(e -> asyncFailure(e, "Password reset failed"));
         } catch (Exception e) {
-            log.error("Password reset failed", e);
-            return ResponseEntity.internalServerError()
-                    .body(new ApiResponse<>(false, "Password reset failed", null));
+            return CompletableFuture.completedFuture(asyncFailure(e, "Password reset failed"));
+        }
+    }
+
+    // Saturated worker pools surface as 503 via GlobalExceptionHandler; anything else keeps the old 500 body
+    private <T> ResponseEntity<ApiResponse<T>> asyncFailure(Throwable e, String message) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ServiceBusyException busy) {
+            throw busy;
+        }
+        if (cause instanceof RejectedExecutionException rejected) {
+            throw rejected;
+        }
+        if (cause instanceof CannotCreateTransactionException unavailable) {
+            throw unavailable;
         }
+        log.error(message, cause);
+        return ResponseEntity.internalServerError()
+                .body(new ApiResponse<>(false, message, null));
     }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package org.example.springsecurity.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@Profile("!reactive")
 public class Homecontroller {
 
     @GetMapping("/home")
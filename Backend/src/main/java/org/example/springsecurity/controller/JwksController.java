@@ -0,0 +1,34 @@
+package org.example.springsecurity.controller;
+
+import org.example.springsecurity.service.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Public keys for verifying our tokens elsewhere (gateways, other services). Served from the key ring's
+ * prebuilt JWK set under both the servlet and the reactive stack.
+ */
+@RestController
+public class JwksController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // keep below jwt.keys.propagation-delay so caches see a new key before it signs anything
+    @Value("${jwt.jwks.max-age:PT1M}")
+    private Duration maxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
@@ -2,6 +2,7 @@ package org.example.springsecurity.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.example.springsecurity.model.Student;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 public class StudentController {
 
     List<Student> students=new ArrayList<>(List.of(
@@ -1,10 +1,12 @@
 package org.example.springsecurity.controller;
 
+import org.example.springsecurity.model.OtpRecord;
 import org.example.springsecurity.model.User;
 import org.example.springsecurity.service.JwtService;
 import org.example.springsecurity.service.Userservice;
 import org.example.springsecurity.service.OtpService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -17,6 +19,7 @@ import org.springframework.http.HttpStatus;
 import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 public class Usercontroller {
     @Autowired
     private Userservice userservice;
@@ -67,7 +70,7 @@ public class Usercontroller {
             return ResponseEntity.badRequest().body("Email and OTP are required");
         }
 
-        if (otpService.verifyOtp(email, otpCode)) {
+        if (otpService.verifyOtp(email, otpCode, OtpRecord.OtpType.LOGIN)) {
             // Find user by email to generate JWT
             User user = userservice.findByEmail(email);
             if (user != null) {
@@ -5,6 +5,8 @@ import lombok.Data;
 @Data
 public class LoginResponse {
     private String token;
+    // opaque, single use: exchange it at /auth/refresh for a new token pair
+    private String refreshToken;
     private String username;
     private String email;
 }
\ No newline at end of file
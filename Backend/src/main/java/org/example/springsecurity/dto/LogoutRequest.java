@@ -0,0 +1,9 @@
+package org.example.springsecurity.dto;
+
+import lombok.Data;
+
+@Data
+public class LogoutRequest {
+    // optional; ends the refresh token's session as well as the access token
+    private String refreshToken;
+}
@@ -10,5 +10,5 @@ public class ResendOtpRequest {
     @Email(message = "Invalid email format")
     private String email;
 
-    private String type; // "LOGIN" or "REGISTRATION"
+    private String type; // "LOGIN", "REGISTRATION" or "PASSWORD_RESET"
 }
\ No newline at end of file
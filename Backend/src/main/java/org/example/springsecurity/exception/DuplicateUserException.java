@@ -0,0 +1,9 @@
+package org.example.springsecurity.exception;
+
+// Registration hit the unique constraint on users.email or users.username; the message says which
+public class DuplicateUserException extends RuntimeException {
+
+    public DuplicateUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,15 +2,19 @@ package org.example.springsecurity.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.springsecurity.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 @Slf4j
@@ -31,6 +35,35 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponse<>(false, "Validation failed", errors));
     }
 
+    // Same body for @Valid failures under the reactive profile
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponse<Map<String, String>>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getFieldErrors().forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+
+        return ResponseEntity.badRequest()
+                .body(new ApiResponse<>(false, "Validation failed", errors));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<String>> handleServiceBusyException(ServiceBusyException ex) {
+        log.warn("Rejected request: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse<>(false, ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiResponse<String>> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return handleServiceBusyException(new ServiceBusyException("Server is busy, please retry shortly", ex));
+    }
+
+    // No database connection within the acquire timeout, e.g. the JDBC guard in virtual-thread mode
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ApiResponse<String>> handleCannotCreateTransactionException(CannotCreateTransactionException ex) {
+        return handleServiceBusyException(new ServiceBusyException("Server is busy, please retry shortly", ex));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<String>> handleRuntimeException(RuntimeException ex) {
         log.error("Runtime exception occurred", ex);
@@ -0,0 +1,24 @@
+package org.example.springsecurity.exception;
+
+/**
+ * Thrown when a bounded worker pool is full. Mapped to 503 with a Retry-After header.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, Throwable cause) {
+        this(message, cause, DEFAULT_RETRY_AFTER_SECONDS);
+    }
+
+    public ServiceBusyException(String message, Throwable cause, long retryAfterSeconds) {
+        super(message, cause);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -11,7 +11,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="otp_records")
+// Lookups filter on email, type and used with a range on expiry_time; cleanup ranges on expiry_time alone
+@Table(name="otp_records", indexes = {
+        @Index(name = "idx_otp_records_lookup", columnList = "email, type, used, expiry_time"),
+        @Index(name = "idx_otp_records_expiry", columnList = "expiry_time")
+})
 public class OtpRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +24,7 @@ public class OtpRecord {
     @Column(nullable = false)
     private String email;
 
+    // HMAC digest of the code (OtpHasher), never the code itself
     @Column(nullable = false)
     private String otp;
 
@@ -29,6 +34,10 @@ public class OtpRecord {
     @Column(nullable = false)
     private boolean used = false;
 
+    // only maintained with otp.attempts.persist=true; the default lets ddl-auto add it to existing tables
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int failedAttempts = 0;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -36,7 +45,13 @@ public class OtpRecord {
     @Column(nullable = false)
     private OtpType type = OtpType.LOGIN;
 
+    // Each type has its own live code per email, so e.g. a login does not cancel an in-flight password reset
     public enum OtpType {
-        LOGIN, REGISTRATION
+        LOGIN, REGISTRATION, PASSWORD_RESET;
+
+        // wording used in the OTP email
+        public String purpose() {
+            return name().toLowerCase().replace('_', ' ');
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.example.springsecurity.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refresh token row joined with the user columns needed to mint the next access token, fetched in one query
+ * by {@code RefreshTokenRepository.findSession}.
+ */
+public record RefreshSession(Long id, String familyId, LocalDateTime expiresAt, LocalDateTime familyExpiresAt,
+                             boolean used, boolean revoked, Long userId, String username, String email,
+                             Boolean emailVerified, Boolean enabled) {
+
+    public boolean isEnabled() {
+        return enabled != null ? enabled : true;
+    }
+
+    // Detached User for JwtService; the password hash is not needed to sign a token
+    public User toUser() {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setEmailVerified(emailVerified);
+        user.setEnabled(enabled);
+        return user;
+    }
+}
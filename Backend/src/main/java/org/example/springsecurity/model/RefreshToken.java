@@ -0,0 +1,53 @@
+package org.example.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+// Refresh hits the unique token_hash index only; family and user indexes serve revocation, expires_at cleanup
+@Table(name="refresh_tokens", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_refresh_tokens_hash", columnNames = "token_hash")
+}, indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_expiry", columnList = "expires_at")
+})
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the opaque token handed to the client, hex encoded; the token itself is never stored
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    // every token rotated from the same login shares the family, so a replayed token can revoke them all
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // absolute end of the login session, carried over on every rotation
+    @Column(nullable = false)
+    private LocalDateTime familyExpiresAt;
+
+    @Column(nullable = false)
+    private boolean used = false;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
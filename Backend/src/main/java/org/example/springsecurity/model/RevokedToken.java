@@ -0,0 +1,39 @@
+package org.example.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+// Nodes poll by created_at for entries written elsewhere; cleanup ranges on expires_at
+@Table(name="revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_created", columnList = "created_at"),
+        @Index(name = "idx_revoked_tokens_expiry", columnList = "expires_at")
+})
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // set for a single revoked token (logout)
+    @Column(length = 36)
+    private String jti;
+
+    // set with notBefore for a "tokens issued strictly before" watermark (password change), compared in milliseconds
+    private String subject;
+
+    private Instant notBefore;
+
+    // after this no token the entry could reject is still valid, so the row can go
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -14,17 +14,24 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="users")
+// Named so registration can tell which one a duplicate insert violated
+@Table(name="users", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username")
+})
 public class User {
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     @NotBlank(message = "Username is required")
     private String username;
 
-    @Column(unique = true, nullable = true) // Make nullable initially
+    @Column(nullable = true) // Make nullable initially
     @Email(message = "Invalid email format")
     private String email;
 
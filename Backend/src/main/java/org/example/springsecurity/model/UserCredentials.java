@@ -0,0 +1,29 @@
+package org.example.springsecurity.model;
+
+/**
+ * The columns of a user the login flow needs, fetched in one query by {@code Userrepo.findCredentialsByEmail}
+ * instead of loading the whole entity more than once per request.
+ */
+public record UserCredentials(Long id, String username, String email, String password,
+                              Boolean emailVerified, Boolean enabled) {
+
+    public boolean isEmailVerified() {
+        return emailVerified != null ? emailVerified : false;
+    }
+
+    public boolean isEnabled() {
+        return enabled != null ? enabled : true;
+    }
+
+    // Detached User carrying just these fields, for code that works on the entity (JwtService, UserCache)
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setEmailVerified(emailVerified);
+        user.setEnabled(enabled);
+        return user;
+    }
+}
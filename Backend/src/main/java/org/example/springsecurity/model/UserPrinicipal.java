@@ -10,14 +10,21 @@ import java.util.Collections;
 public class UserPrinicipal implements UserDetails {
 
     private final User user;
+    private final Collection<? extends GrantedAuthority> authorities;
 
     public UserPrinicipal(User user) {
+        this(user, Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    // Used when the principal is rebuilt from signed token claims rather than loaded from the database
+    public UserPrinicipal(User user, Collection<? extends GrantedAuthority> authorities) {
         this.user = user;
+        this.authorities = authorities;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"));
+        return authorities;
     }
 
     @Override
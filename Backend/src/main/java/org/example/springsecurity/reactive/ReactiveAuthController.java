@@ -0,0 +1,176 @@
+package org.example.springsecurity.reactive;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.dto.*;
+import org.example.springsecurity.exception.ServiceBusyException;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.service.JwtService;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The /auth API of AuthController on WebFlux and R2DBC, active with the reactive profile. Requests, responses
+ * and status codes are the same; no thread is held while a request waits on BCrypt, the database or SMTP.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/auth")
+@Slf4j
+public class ReactiveAuthController {
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    @Autowired
+    private ReactiveOtpService otpService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<ApiResponse<String>>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.existsByEmail(request.getEmail())
+                .flatMap(emailTaken -> {
+                    if (emailTaken) {
+                        return Mono.just(badRequest("Email already registered"));
+                    }
+                    return userService.existsByUsername(request.getUsername())
+                            .flatMap(usernameTaken -> {
+                                if (usernameTaken) {
+                                    return Mono.just(badRequest("Username already taken"));
+                                }
+                                return userService.encodePassword(request.getPassword())
+                                        .flatMap(encodedPassword -> userService.createUser(request, encodedPassword))
+                                        .flatMap(user -> otpService.sendOtp(user.getEmail(), OtpRecord.OtpType.REGISTRATION))
+                                        .thenReturn(ok("Registration successful. Please check your email for OTP verification."));
+                            });
+                })
+                .onErrorResume(e -> failure(e, "Registration failed"));
+    }
+
+    @PostMapping("/verify-registration")
+    public Mono<ResponseEntity<ApiResponse<String>>> verifyRegistration(@Valid @RequestBody OtpVerificationRequest request) {
+        return otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.REGISTRATION)
+                .flatMap(verified -> verified
+                        ? userService.verifyUserEmail(request.getEmail())
+                                .thenReturn(ok("Email verified successfully. You can now login."))
+                        : Mono.just(badRequest("Invalid or expired OTP")))
+                .onErrorResume(e -> failure(e, "Verification failed"));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<ApiResponse<String>>> login(@Valid @RequestBody LoginRequest request) {
+        return userService.validateCredentials(request.getEmail(), request.getPassword())
+                .flatMap(user -> {
+                    // Check if email is verified
+                    if (!user.isEmailVerified()) {
+                        return Mono.just(badRequest("Email not verified. Please verify your email first."));
+                    }
+                    return otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.LOGIN)
+                            .thenReturn(ok("OTP sent to your email. Please verify to complete login."));
+                })
+                .defaultIfEmpty(badRequest("Invalid email or password"))
+                .onErrorResume(e -> failure(e, "Login failed"));
+    }
+
+    @PostMapping("/verify-login")
+    public Mono<ResponseEntity<ApiResponse<LoginResponse>>> verifyLogin(@Valid @RequestBody OtpVerificationRequest request) {
+        return otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.LOGIN)
+                .flatMap(verified -> {
+                    if (!verified) {
+                        return Mono.just(ResponseEntity.badRequest()
+                                .body(new ApiResponse<LoginResponse>(false, "Invalid or expired OTP", null)));
+                    }
+                    return userService.getUserByEmail(request.getEmail())
+                            .map(user -> {
+                                LoginResponse loginResponse = new LoginResponse();
+                                loginResponse.setToken(jwtService.generateToken(user.toUser()));
+                                loginResponse.setUsername(user.getUsername());
+                                loginResponse.setEmail(user.getEmail());
+                                return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", loginResponse));
+                            });
+                })
+                .onErrorResume(e -> failure(e, "Login verification failed"));
+    }
+
+    // Revokes the bearer access token; the revocation list has no shared table here, so it is per node
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<ApiResponse<String>>> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwtService.verify(authHeader.substring(7)).ifPresent(tokenRevocationService::revoke);
+        }
+        return Mono.just(ok("Logged out"));
+    }
+
+    @PostMapping("/resend-otp")
+    public Mono<ResponseEntity<ApiResponse<String>>> resendOtp(@Valid @RequestBody ResendOtpRequest request) {
+        return userService.existsByEmail(request.getEmail())
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.just(badRequest("Email not found"));
+                    }
+                    OtpRecord.OtpType type = request.getType() != null ?
+                            OtpRecord.OtpType.valueOf(request.getType().toUpperCase()) :
+                            OtpRecord.OtpType.LOGIN;
+                    return otpService.sendOtp(request.getEmail(), type)
+                            .thenReturn(ok("OTP resent successfully"));
+                })
+                .onErrorResume(e -> failure(e, "Failed to resend OTP"));
+    }
+
+    @PostMapping("/forgot-password")
+    public Mono<ResponseEntity<ApiResponse<String>>> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
+        return userService.existsByEmail(request.getEmail())
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.just(badRequest("Email not found"));
+                    }
+                    return otpService.sendOtp(request.getEmail(), OtpRecord.OtpType.PASSWORD_RESET)
+                            .thenReturn(ok("Password reset OTP sent to your email"));
+                })
+                .onErrorResume(e -> failure(e, "Failed to process password reset"));
+    }
+
+    @PostMapping("/reset-password")
+    public Mono<ResponseEntity<ApiResponse<String>>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
+        // Hash before consuming the OTP, so a busy hash pool (503) leaves the reset code usable for a retry
+        return userService.encodePassword(request.getNewPassword())
+                .flatMap(encodedPassword -> otpService.verifyOtp(request.getEmail(), request.getOtp(), OtpRecord.OtpType.PASSWORD_RESET)
+                        .flatMap(verified -> {
+                            if (!verified) {
+                                return Mono.just(badRequest("Invalid or expired OTP"));
+                            }
+                            return userService.updatePassword(request.getEmail(), encodedPassword)
+                                    .thenReturn(ok("Password reset successfully"));
+                        }))
+                .onErrorResume(e -> failure(e, "Password reset failed"));
+    }
+
+    private static ResponseEntity<ApiResponse<String>> ok(String message) {
+        return ResponseEntity.ok(new ApiResponse<>(true, message, null));
+    }
+
+    private static ResponseEntity<ApiResponse<String>> badRequest(String message) {
+        return ResponseEntity.badRequest().body(new ApiResponse<>(false, message, null));
+    }
+
+    // Saturated hash pool surfaces as 503 via GlobalExceptionHandler; anything else keeps the 500 body
+    private <T> Mono<ResponseEntity<ApiResponse<T>>> failure(Throwable e, String message) {
+        if (e instanceof ServiceBusyException || e instanceof RejectedExecutionException) {
+            return Mono.error(e);
+        }
+        log.error(message, e);
+        return Mono.just(ResponseEntity.internalServerError()
+                .body(new ApiResponse<>(false, message, null)));
+    }
+}
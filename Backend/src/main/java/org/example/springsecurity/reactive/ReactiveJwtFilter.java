@@ -0,0 +1,78 @@
+package org.example.springsecurity.reactive;
+
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserPrinicipal;
+import org.example.springsecurity.service.JwtService;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.example.springsecurity.service.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+// WebFlux counterpart of JwtFilter: same verification, revocation and stateless-principal rules
+@Component
+@Profile("reactive")
+public class ReactiveJwtFilter implements WebFilter {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ReactiveUserDetailsService userDetailsService;
+
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        Optional<VerifiedToken> verified = jwtService.verify(authHeader.substring(7));
+        if (verified.isEmpty() || tokenRevocationService.isRevoked(verified.get())) {
+            return chain.filter(exchange);
+        }
+
+        return resolvePrincipal(verified.get())
+                .filter(userDetails -> userDetails.isEnabled()
+                        && verified.get().subject().equals(userDetails.getUsername()))
+                .map(userDetails -> Optional.of(
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities())))
+                .onErrorResume(UsernameNotFoundException.class, e -> Mono.empty())
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authToken -> authToken.isPresent()
+                        ? chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken.get()))
+                        : chain.filter(exchange));
+    }
+
+    private Mono<UserDetails> resolvePrincipal(VerifiedToken token) {
+        if (statelessPrincipal && token.hasPrincipalClaims()) {
+            User user = new User();
+            user.setUsername(token.subject());
+            user.setEnabled(token.enabled());
+            user.setEmailVerified(token.emailVerified());
+            return Mono.just(new UserPrinicipal(user, token.roles().stream().map(SimpleGrantedAuthority::new).toList()));
+        }
+        // tokens minted before principal claims existed still go through the user lookup
+        return userDetailsService.findByUsername(token.subject());
+    }
+}
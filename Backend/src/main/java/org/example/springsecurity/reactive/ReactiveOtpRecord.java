@@ -0,0 +1,32 @@
+package org.example.springsecurity.reactive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// R2DBC mapping of the otp_records table shared with the JPA OtpRecord entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("otp_records")
+public class ReactiveOtpRecord {
+    @Id
+    private Long id;
+
+    private String email;
+
+    private String otp;
+
+    private LocalDateTime expiryTime;
+
+    private boolean used = false;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private OtpRecord.OtpType type = OtpRecord.OtpType.LOGIN;
+}
@@ -0,0 +1,32 @@
+package org.example.springsecurity.reactive;
+
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Non-blocking counterpart of OtpRepository
+@Repository
+public interface ReactiveOtpRepository extends R2dbcRepository<ReactiveOtpRecord, Long> {
+
+    @Modifying
+    @Query("UPDATE otp_records SET used = true WHERE email = :email AND type = :type AND used = false")
+    Mono<Integer> markOtpsAsUsed(String email, String type);
+
+    Mono<ReactiveOtpRecord> findFirstByEmailAndTypeAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(
+            String email, OtpRecord.OtpType type, LocalDateTime now);
+
+    // Marks a live code used after its digest matched; 1 only for the caller that claimed it
+    @Modifying
+    @Query("UPDATE otp_records SET used = true WHERE id = :id AND used = false AND expiry_time > :now")
+    Mono<Integer> claim(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM otp_records WHERE id IN " +
+            "(SELECT id FROM otp_records WHERE expiry_time < :cutoff LIMIT :limit)")
+    Mono<Integer> deleteExpiredBatch(LocalDateTime cutoff, int limit);
+}
@@ -0,0 +1,141 @@
+package org.example.springsecurity.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.service.EmailService;
+import org.example.springsecurity.service.OtpAttemptTracker;
+import org.example.springsecurity.service.OtpHasher;
+import org.example.springsecurity.service.OtpIssueCooldown;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+
+/**
+ * OtpService for the reactive profile. Codes live in otp_records through R2DBC; the email is handed to
+ * the blocking mail client on the bounded-elastic scheduler once the code is committed, so the response
+ * never waits on SMTP.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveOtpService {
+
+    @Autowired
+    private ReactiveOtpRepository otpRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private OtpAttemptTracker attemptTracker;
+
+    @Autowired
+    private OtpHasher otpHasher;
+
+    @Autowired
+    private OtpIssueCooldown issueCooldown;
+
+    @Value("${otp.cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    private final SecureRandom random = new SecureRandom();
+    private static final int OTP_LENGTH = 6;
+    private static final int OTP_EXPIRY_MINUTES = 5;
+
+    public String generateOtp() {
+        StringBuilder otp = new StringBuilder();
+        for (int i = 0; i < OTP_LENGTH; i++) {
+            otp.append(random.nextInt(10));
+        }
+        return otp.toString();
+    }
+
+    public Mono<Void> sendOtp(String email, OtpRecord.OtpType type) {
+        if (!issueCooldown.tryAcquire(email, type)) {
+            log.info("Duplicate {} OTP request within cooldown for email: {}, live code kept", type, email);
+            return Mono.empty();
+        }
+
+        String otp = generateOtp();
+        LocalDateTime now = LocalDateTime.now();
+
+        ReactiveOtpRecord otpRecord = new ReactiveOtpRecord();
+        otpRecord.setEmail(email);
+        otpRecord.setOtp(otpHasher.digest(email, type, otp));
+        otpRecord.setExpiryTime(now.plusMinutes(OTP_EXPIRY_MINUTES));
+        otpRecord.setType(type);
+        otpRecord.setUsed(false);
+        otpRecord.setCreatedAt(now);
+
+        // Invalidate earlier codes of this type and store the new one atomically
+        return otpRepository.markOtpsAsUsed(email, type.name())
+                .then(otpRepository.save(otpRecord))
+                .as(transactionalOperator::transactional)
+                .doOnError(e -> issueCooldown.release(email, type))
+                .doOnSuccess(saved -> {
+                    attemptTracker.reset(email, type);
+                    sendEmailInBackground(email, otp, type.purpose());
+                    log.info("OTP generated and sent for email: {}", email);
+                })
+                .then();
+    }
+
+    public Mono<Boolean> verifyOtp(String email, String otp, OtpRecord.OtpType type) {
+        if (attemptTracker.isLockedOut(email, type)) {
+            log.warn("{} OTP verification rejected for locked-out email: {}", type, email);
+            return Mono.just(false);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        return otpRepository.findFirstByEmailAndTypeAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(email, type, now)
+                .filter(active -> otpHasher.matches(email, type, otp, active.getOtp()))
+                .flatMap(active -> otpRepository.claim(active.getId(), now))
+                .map(claimed -> claimed > 0)
+                .defaultIfEmpty(false)
+                .flatMap(verified -> {
+                    if (verified) {
+                        attemptTracker.reset(email, type);
+                        issueCooldown.release(email, type);
+                        log.info("{} OTP verified successfully for email: {}", type, email);
+                        return Mono.just(true);
+                    }
+                    if (attemptTracker.recordFailure(email, type)) {
+                        log.warn("{} OTP invalidated after {} failed attempts for email: {}",
+                                type, attemptTracker.getMaxFailures(), email);
+                        issueCooldown.release(email, type);
+                        return otpRepository.markOtpsAsUsed(email, type.name()).thenReturn(false);
+                    }
+                    log.warn("{} OTP verification failed for email: {}", type, email);
+                    return Mono.just(false);
+                });
+    }
+
+    private void sendEmailInBackground(String email, String otp, String purpose) {
+        Mono.fromRunnable(() -> emailService.sendOtpEmail(email, otp, purpose))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> log.error("Failed to send OTP email to: {}", email, e));
+    }
+
+    // Same bounded batches as the JDBC store; repeats until a batch comes back short
+    @Scheduled(fixedDelayString = "${otp.cleanup.interval-ms:60000}")
+    public Mono<Void> cleanupExpiredOtps() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        return otpRepository.deleteExpiredBatch(cutoff, cleanupBatchSize)
+                .repeat()
+                .takeUntil(deleted -> deleted < cleanupBatchSize)
+                .reduce(0, Integer::sum)
+                .doOnNext(total -> log.debug("Deleted {} expired OTP records", total))
+                .then();
+    }
+}
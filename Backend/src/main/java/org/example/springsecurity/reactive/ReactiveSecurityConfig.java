@@ -0,0 +1,71 @@
+package org.example.springsecurity.reactive;
+
+import org.example.springsecurity.model.UserPrinicipal;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+
+// WebFlux equivalent of SecurityConfig and CorsConfig
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ReactiveJwtFilter jwtFilter) {
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(handling ->
+                        handling.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .authorizeExchange(exchange ->
+                        exchange.pathMatchers(
+                                        "/auth/**",
+                                        "/error",
+                                        "/actuator/health",
+                                        "/.well-known/jwks.json",
+                                        // scrape endpoint; restrict at the network level in production
+                                        "/actuator/prometheus"
+                                ).permitAll()
+                                .anyExchange().authenticated())
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    @Bean
+    public ReactiveUserDetailsService reactiveUserDetailsService(ReactiveUserRepository userRepository) {
+        return username -> userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("user not found")))
+                .map(user -> new UserPrinicipal(user.toUser()));
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        CorsConfiguration config = new CorsConfiguration();
+
+        // Allow all origins for development - restrict this in production
+        config.setAllowCredentials(true);
+        config.addAllowedOrigin("http://localhost:3000"); // Add your frontend URL
+        config.addAllowedHeader("*");
+        config.addAllowedMethod("*");
+
+        source.registerCorsConfiguration("/**", config);
+        return source;
+    }
+}
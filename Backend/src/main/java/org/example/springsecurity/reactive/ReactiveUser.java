@@ -0,0 +1,45 @@
+package org.example.springsecurity.reactive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.springsecurity.model.User;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// R2DBC mapping of the users table shared with the JPA User entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("users")
+public class ReactiveUser {
+    @Id
+    private Long id;
+
+    private String username;
+
+    private String email;
+
+    private String password;
+
+    private Boolean emailVerified = false;
+
+    private Boolean enabled = true;
+
+    private LocalDateTime createdAt;
+
+    public boolean isEmailVerified() {
+        return emailVerified != null ? emailVerified : false;
+    }
+
+    public boolean isEnabled() {
+        return enabled != null ? enabled : true;
+    }
+
+    // Shared services (JwtService, UserPrinicipal) work on the JPA model
+    public User toUser() {
+        return new User(id, username, email, password, emailVerified, enabled, createdAt);
+    }
+}
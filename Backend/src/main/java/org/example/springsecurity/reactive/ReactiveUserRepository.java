@@ -0,0 +1,33 @@
+package org.example.springsecurity.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of Userrepo
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<ReactiveUser, Long> {
+
+    Mono<ReactiveUser> findByUsername(String username);
+
+    Mono<ReactiveUser> findByEmail(String email);
+
+    Mono<Boolean> existsByEmail(String email);
+
+    Mono<Boolean> existsByUsername(String username);
+
+    @Modifying
+    @Query("UPDATE users SET email_verified = true WHERE email = :email")
+    Mono<Integer> markEmailVerified(String email);
+
+    @Modifying
+    @Query("UPDATE users SET password = :password WHERE email = :email")
+    Mono<Integer> updatePassword(String email, String password);
+
+    // Compare-and-set so a concurrent password change is never overwritten by a login-time rehash
+    @Modifying
+    @Query("UPDATE users SET password = :newHash WHERE id = :id AND password = :oldHash")
+    Mono<Integer> replacePasswordHash(Long id, String oldHash, String newHash);
+}
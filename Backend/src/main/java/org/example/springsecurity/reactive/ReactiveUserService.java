@@ -0,0 +1,102 @@
+package org.example.springsecurity.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.dto.RegisterRequest;
+import org.example.springsecurity.service.PasswordHasher;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+// Userservice for the reactive profile; BCrypt still runs on the bounded password hash pool
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserService {
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return userRepository.existsByEmail(email);
+    }
+
+    public Mono<Boolean> existsByUsername(String username) {
+        return userRepository.existsByUsername(username);
+    }
+
+    public Mono<ReactiveUser> getUserByEmail(String email) {
+        return userRepository.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found with email: " + email)));
+    }
+
+    public Mono<String> encodePassword(String rawPassword) {
+        return Mono.fromFuture(() -> passwordHasher.encode(rawPassword));
+    }
+
+    public Mono<ReactiveUser> createUser(RegisterRequest request, String encodedPassword) {
+        ReactiveUser user = new ReactiveUser();
+        user.setUsername(request.getUsername());
+        user.setEmail(request.getEmail());
+        user.setPassword(encodedPassword);
+        user.setEmailVerified(false);
+        user.setEnabled(true);
+        user.setCreatedAt(LocalDateTime.now());
+
+        return userRepository.save(user)
+                .doOnNext(saved -> log.info("User created successfully with email: {}", request.getEmail()));
+    }
+
+    public Mono<Void> verifyUserEmail(String email) {
+        return userRepository.markEmailVerified(email)
+                .flatMap(updated -> updated > 0
+                        ? Mono.<Void>empty()
+                        : Mono.error(new RuntimeException("User not found with email: " + email)))
+                .doOnSuccess(ignored -> log.info("Email verified for user: {}", email));
+    }
+
+    // Emits the user when the password matches, empty otherwise
+    public Mono<ReactiveUser> validateCredentials(String email, String password) {
+        return userRepository.findByEmail(email)
+                .filterWhen(user -> Mono.fromFuture(() -> passwordHasher.matches(password, user.getPassword())))
+                .doOnNext(user -> {
+                    if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                        rehashPassword(user, password);
+                    }
+                });
+    }
+
+    // Moves a stored hash to the current encoding after a successful login; best effort, never fails the login
+    private void rehashPassword(ReactiveUser user, String rawPassword) {
+        String oldHash = user.getPassword();
+        encodePassword(rawPassword)
+                .flatMap(newHash -> userRepository.replacePasswordHash(user.getId(), oldHash, newHash))
+                .subscribe(updated -> {
+                    if (updated > 0) {
+                        log.info("Password hash re-encoded for user: {}", user.getUsername());
+                    }
+                }, e -> log.warn("Password rehash skipped for user: {}", user.getUsername(), e));
+    }
+
+    public Mono<Void> updatePassword(String email, String encodedPassword) {
+        return getUserByEmail(email)
+                .flatMap(user -> userRepository.updatePassword(email, encodedPassword)
+                        .doOnNext(updated -> tokenRevocationService.revokeTokensIssuedBefore(user.getUsername(), Instant.now())))
+                .doOnSuccess(ignored -> log.info("Password updated for user: {}", email))
+                .then();
+    }
+}
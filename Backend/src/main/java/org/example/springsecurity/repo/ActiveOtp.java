@@ -0,0 +1,10 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.OtpRecord;
+
+/**
+ * The live code for an email and type as returned by {@link OtpStore#findActive(String, OtpRecord.OtpType)}. {@code handle} identifies the
+ * stored code to {@link OtpStore#markUsed(ActiveOtp)} and is specific to each store.
+ */
+public record ActiveOtp(Object handle, String email, OtpRecord.OtpType type, String digest) {
+}
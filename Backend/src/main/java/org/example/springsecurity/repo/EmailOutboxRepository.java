@@ -0,0 +1,25 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // SKIP LOCKED lets several dispatchers (threads or nodes) claim disjoint batches without blocking each other
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutboxMessage> lockDueMessages(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.createdAt < :cutoff")
+    int deleteByStatusCreatedBefore(@Param("status") EmailOutboxMessage.Status status,
+                                    @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,155 @@
+package org.example.springsecurity.repo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * Keeps live OTPs in a concurrent map keyed by email and type, with expiry driven by a hashed timing wheel instead of
+ * SQL deletes. Issue and verify never touch the database, but codes are lost on restart and are only visible
+ * to the node that issued them.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory")
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<String, Entry> live = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+
+    public InMemoryOtpStore(@Value("${otp.memory.tick-ms:1000}") long tickMillis,
+                            @Value("${otp.memory.wheel-size:512}") int wheelSize) {
+        this.wheel = new TimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    @Override
+    public void issue(String email, OtpRecord.OtpType type, String digest, Duration ttl) {
+        Entry entry = new Entry(email, digest, type, System.currentTimeMillis() + ttl.toMillis());
+        // replacing the map value is what invalidates the previous code; its wheel slot just expires as a no-op
+        live.put(entry.key(), entry);
+        wheel.schedule(entry);
+    }
+
+    @Override
+    public Optional<ActiveOtp> findActive(String email, OtpRecord.OtpType type) {
+        Entry entry = live.get(key(email, type));
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(new ActiveOtp(entry, email, entry.type(), entry.digest()));
+    }
+
+    @Override
+    public boolean markUsed(ActiveOtp otp) {
+        Entry entry = (Entry) otp.handle();
+        // conditional remove: of two concurrent verifies with the right code only one succeeds
+        return !entry.isExpired(System.currentTimeMillis()) && live.remove(entry.key(), entry);
+    }
+
+    @Override
+    public boolean hasValidOtp(String email, OtpRecord.OtpType type) {
+        Entry entry = live.get(key(email, type));
+        return entry != null && !entry.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public void invalidate(String email, OtpRecord.OtpType type) {
+        live.remove(key(email, type));
+    }
+
+    @Override
+    public void deleteExpired() {
+        // expiry is continuous, see advanceWheel()
+    }
+
+    @Scheduled(fixedRateString = "${otp.memory.tick-ms:1000}")
+    public void advanceWheel() {
+        int expired = wheel.advance(System.currentTimeMillis(), entry -> live.remove(entry.key(), entry));
+        if (expired > 0) {
+            log.debug("Expired {} in-memory OTPs", expired);
+        }
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    static String key(String email, OtpRecord.OtpType type) {
+        return type.name() + ':' + email;
+    }
+
+    record Entry(String email, String digest, OtpRecord.OtpType type, long deadlineMillis) {
+        String key() {
+            return InMemoryOtpStore.key(email, type);
+        }
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= deadlineMillis;
+        }
+    }
+
+    /**
+     * Hashed timing wheel: entries go into the bucket for their deadline tick, and each tick only scans one bucket.
+     * Deadlines further out than one revolution simply stay in their bucket until a later pass reaches them.
+     */
+    static final class TimingWheel {
+
+        private final long tickMillis;
+        private final int mask;
+        private final Queue<Entry>[] buckets;
+        private volatile long processedTick;
+
+        @SuppressWarnings("unchecked")
+        TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+            int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+            this.tickMillis = tickMillis;
+            this.mask = size - 1;
+            this.buckets = new Queue[size];
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new ConcurrentLinkedQueue<>();
+            }
+            this.processedTick = startMillis / tickMillis;
+        }
+
+        void schedule(Entry entry) {
+            long tick = Math.max((entry.deadlineMillis() + tickMillis - 1) / tickMillis, processedTick + 1);
+            buckets[(int) (tick & mask)].add(entry);
+        }
+
+        synchronized int advance(long nowMillis, Predicate<Entry> onExpire) {
+            long nowTick = nowMillis / tickMillis;
+            // after a long pause one full revolution already visits every bucket
+            long from = Math.max(processedTick + 1, nowTick - mask);
+            int expired = 0;
+            for (long tick = from; tick <= nowTick; tick++) {
+                Queue<Entry> bucket = buckets[(int) (tick & mask)];
+                for (int pending = bucket.size(); pending > 0; pending--) {
+                    Entry entry = bucket.poll();
+                    if (entry == null) {
+                        break;
+                    }
+                    if (entry.isExpired(nowMillis)) {
+                        if (onExpire.test(entry)) {
+                            expired++;
+                        }
+                    } else {
+                        bucket.add(entry);
+                    }
+                }
+            }
+            processedTick = Math.max(processedTick, nowTick);
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.springsecurity.repo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@Profile("!reactive")
+@Slf4j
+@ConditionalOnProperty(name = "otp.store", havingValue = "jdbc", matchIfMissing = true)
+public class JpaOtpStore implements OtpStore {
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    // delete: bounded batch deletes; partitions: expired rows leave with their partition (OtpPartitionMaintenance)
+    @Value("${otp.cleanup.mode:delete}")
+    private String cleanupMode;
+
+    @Value("${otp.cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    @Value("${otp.cleanup.max-batches:50}")
+    private int cleanupMaxBatches;
+
+    // also count failed guesses on the row, so the limit survives restarts and holds across nodes
+    @Value("${otp.attempts.persist:false}")
+    private boolean persistAttempts;
+
+    @Override
+    @Transactional
+    public void issue(String email, OtpRecord.OtpType type, String digest, Duration ttl) {
+        // Mark existing OTPs of this type for the email as used; other flows keep their codes
+        otpRepository.markOtpsAsUsed(email, type);
+
+        LocalDateTime now = LocalDateTime.now();
+        OtpRecord otpRecord = new OtpRecord();
+        otpRecord.setEmail(email);
+        otpRecord.setOtp(digest);
+        otpRecord.setExpiryTime(now.plus(ttl));
+        otpRecord.setType(type);
+        otpRecord.setUsed(false);
+        otpRecord.setCreatedAt(now);
+
+        otpRepository.save(otpRecord);
+    }
+
+    @Override
+    public Optional<ActiveOtp> findActive(String email, OtpRecord.OtpType type) {
+        return otpRepository
+                .findTopByEmailAndTypeAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(email, type, LocalDateTime.now())
+                .map(record -> new ActiveOtp(record.getId(), record.getEmail(), record.getType(), record.getOtp()));
+    }
+
+    @Override
+    public boolean markUsed(ActiveOtp otp) {
+        return otpRepository.claimOtp((Long) otp.handle(), LocalDateTime.now()) > 0;
+    }
+
+    @Override
+    public void invalidate(String email, OtpRecord.OtpType type) {
+        otpRepository.markOtpsAsUsed(email, type);
+    }
+
+    @Override
+    public void recordFailedAttempt(String email, OtpRecord.OtpType type, int maxAttempts) {
+        if (persistAttempts) {
+            otpRepository.recordFailedAttempt(email, type, maxAttempts, LocalDateTime.now());
+        }
+    }
+
+    @Override
+    public boolean hasValidOtp(String email, OtpRecord.OtpType type) {
+        return otpRepository
+                .findTopByEmailAndTypeAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(email, type, LocalDateTime.now())
+                .isPresent();
+    }
+
+    // Each batch commits on its own, so a large backlog never holds one long table-wide lock
+    @Override
+    public void deleteExpired() {
+        if ("partitions".equals(cleanupMode)) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now();
+        int total = 0;
+        for (int batch = 0; batch < cleanupMaxBatches; batch++) {
+            int deleted = otpRepository.deleteExpiredBatch(cutoff, cleanupBatchSize);
+            total += deleted;
+            if (deleted < cleanupBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Deleted {} expired OTP records", total);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.springsecurity.repo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps the daily partitions of a range-partitioned otp_records table (see db/otp_records_partitioned.sql):
+ * creates the next few days ahead of time and drops partitions whose whole range has expired,
+ * so expired codes are removed without row-by-row deletes.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+@ConditionalOnProperty(name = "otp.cleanup.mode", havingValue = "partitions")
+public class OtpPartitionMaintenance {
+
+    private static final String PARTITION_PREFIX = "otp_records_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${otp.cleanup.partition-premake-days:3}")
+    private int premakeDays;
+
+    @Value("${otp.cleanup.partition-retention-days:1}")
+    private int retentionDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 * * * *")
+    public void maintainPartitions() {
+        LocalDate today = LocalDate.now();
+        for (int day = 0; day <= premakeDays; day++) {
+            createPartition(today.plusDays(day));
+        }
+        dropPartitionsBefore(today.minusDays(retentionDays));
+    }
+
+    private void createPartition(LocalDate day) {
+        String sql = "CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF otp_records "
+                + "FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            // e.g. the default partition already holds rows for that day; inserts still land there
+            log.warn("Could not create OTP partition for {}: {}", day, e.getMessage());
+        }
+    }
+
+    // Partitions are named by the day they cover, so anything older than the cutoff holds only expired rows
+    private void dropPartitionsBefore(LocalDate cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'otp_records'", String.class);
+
+        for (String partition : partitions) {
+            if (!partition.matches(PARTITION_PREFIX + "\\d{8}")) {
+                continue;
+            }
+            LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (day.isBefore(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped expired OTP partition {}", partition);
+            }
+        }
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+}
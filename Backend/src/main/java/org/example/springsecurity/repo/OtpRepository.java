@@ -14,19 +14,33 @@ import java.util.Optional;
 @Repository
 public interface OtpRepository extends JpaRepository<OtpRecord, Long> {
 
-    Optional<OtpRecord> findByEmailAndOtpAndUsedFalseAndExpiryTimeAfter(
-            String email, String otp, LocalDateTime currentTime);
+    // Marks a live code used after its digest matched; returns 1 only for the caller that claimed it
+    @Modifying
+    @Transactional
+    @Query("UPDATE OtpRecord o SET o.used = true WHERE o.id = :id AND o.used = false AND o.expiryTime > :now")
+    int claimOtp(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Counts a wrong guess against the live code and marks it used once maxAttempts is reached
+    @Modifying
+    @Transactional
+    @Query("UPDATE OtpRecord o SET o.failedAttempts = o.failedAttempts + 1, " +
+            "o.used = CASE WHEN o.failedAttempts + 1 >= :maxAttempts THEN true ELSE false END " +
+            "WHERE o.email = :email AND o.type = :type AND o.used = false AND o.expiryTime > :now")
+    int recordFailedAttempt(@Param("email") String email, @Param("type") OtpRecord.OtpType type,
+                            @Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
 
+    // Deletes at most :limit expired rows per call so each transaction stays short and locks few rows
     @Modifying
     @Transactional
-    @Query("DELETE FROM OtpRecord o WHERE o.expiryTime < :currentTime")
-    void deleteExpiredOtps(@Param("currentTime") LocalDateTime currentTime);
+    @Query(value = "DELETE FROM otp_records WHERE id IN " +
+            "(SELECT id FROM otp_records WHERE expiry_time < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 
     @Modifying
     @Transactional
-    @Query("UPDATE OtpRecord o SET o.used = true WHERE o.email = :email AND o.used = false")
-    void markAllOtpsAsUsedForEmail(@Param("email") String email);
+    @Query("UPDATE OtpRecord o SET o.used = true WHERE o.email = :email AND o.type = :type AND o.used = false")
+    void markOtpsAsUsed(@Param("email") String email, @Param("type") OtpRecord.OtpType type);
 
-    Optional<OtpRecord> findTopByEmailAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(
-            String email, LocalDateTime currentTime);
+    Optional<OtpRecord> findTopByEmailAndTypeAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(
+            String email, OtpRecord.OtpType type, LocalDateTime currentTime);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.OtpRecord;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Storage for issued OTP codes behind {@link org.example.springsecurity.service.OtpService}.
+ * Selected with {@code otp.store}: {@code jdbc} (default, the otp_records table), {@code memory}
+ * (single node or sticky sessions only) or {@code redis} (shared across nodes).
+ */
+public interface OtpStore {
+
+    // Stores the digest of a new code, invalidating any earlier code of the same type for the email
+    void issue(String email, OtpRecord.OtpType type, String digest, Duration ttl);
+
+    // The live code of this type for the email, if any; the caller compares digests
+    Optional<ActiveOtp> findActive(String email, OtpRecord.OtpType type);
+
+    // Atomically marks the code as used; true only for the caller that claimed it while it was still live
+    boolean markUsed(ActiveOtp otp);
+
+    boolean hasValidOtp(String email, OtpRecord.OtpType type);
+
+    // Invalidates the live code of this type for the email, e.g. once too many wrong guesses were made
+    void invalidate(String email, OtpRecord.OtpType type);
+
+    // Optionally persists a failed guess against the live code, invalidating it at maxAttempts
+    default void recordFailedAttempt(String email, OtpRecord.OtpType type, int maxAttempts) {
+    }
+
+    void deleteExpired();
+}
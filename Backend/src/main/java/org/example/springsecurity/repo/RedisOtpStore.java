@@ -0,0 +1,74 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OTP store on a Redis-protocol key/value server, so a code issued on one node verifies on any other without
+ * going through Postgres. One key per email and type holds the code with a native TTL, so issuing a code simply
+ * overwrites the previous one of the same type; the email is used as a hash tag so all of a user's keys live in
+ * the same cluster slot.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "redis")
+public class RedisOtpStore implements OtpStore {
+
+    // compare-and-delete on the digest that was read, so only one caller claims the code and a newer one survives
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1]) " +
+            "  return 1 " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redis;
+
+    public RedisOtpStore(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public void issue(String email, OtpRecord.OtpType type, String digest, Duration ttl) {
+        redis.opsForValue().set(key(email, type), digest, ttl);
+    }
+
+    @Override
+    public Optional<ActiveOtp> findActive(String email, OtpRecord.OtpType type) {
+        String key = key(email, type);
+        return Optional.ofNullable(redis.opsForValue().get(key))
+                .map(digest -> new ActiveOtp(key, email, type, digest));
+    }
+
+    @Override
+    public boolean markUsed(ActiveOtp otp) {
+        Long claimed = redis.execute(CLAIM, List.of((String) otp.handle()), otp.digest());
+        return claimed != null && claimed == 1L;
+    }
+
+    @Override
+    public boolean hasValidOtp(String email, OtpRecord.OtpType type) {
+        return Boolean.TRUE.equals(redis.hasKey(key(email, type)));
+    }
+
+    @Override
+    public void invalidate(String email, OtpRecord.OtpType type) {
+        redis.delete(key(email, type));
+    }
+
+    @Override
+    public void deleteExpired() {
+        // Redis expires keys natively
+    }
+
+    static String key(String email, OtpRecord.OtpType type) {
+        return "otp:{" + email + "}:" + type.name();
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.RefreshSession;
+import org.example.springsecurity.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // The token row and its user in one round trip over the unique hash index
+    @Query("SELECT new org.example.springsecurity.model.RefreshSession(" +
+            "r.id, r.familyId, r.expiresAt, r.familyExpiresAt, r.used, r.revoked, " +
+            "u.id, u.username, u.email, u.emailVerified, u.enabled) " +
+            "FROM RefreshToken r JOIN User u ON u.id = r.userId WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshSession> findSession(@Param("tokenHash") String tokenHash);
+
+    // Marks the presented token used; returns 1 only for the one request allowed to rotate it
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.id = :id AND r.used = false AND r.revoked = false")
+    int claim(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    // Logout: ends the session the presented token belongs to, in one statement
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.revoked = false AND r.familyId = " +
+            "(SELECT t.familyId FROM RefreshToken t WHERE t.tokenHash = :tokenHash)")
+    int revokeFamilyOf(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.userId = :userId AND r.revoked = false")
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    // Deletes at most :limit expired rows per call so each transaction stays short and locks few rows
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+            "(SELECT id FROM refresh_tokens WHERE expires_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // startup load: every entry that can still reject a token
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    // incremental refresh; callers overlap the window, applying an entry twice is harmless
+    List<RevokedToken> findByCreatedAtGreaterThanEqual(Instant since);
+
+    // Deletes at most :limit expired rows per call so each transaction stays short and locks few rows
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM revoked_tokens WHERE id IN " +
+            "(SELECT id FROM revoked_tokens WHERE expires_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -1,8 +1,13 @@
 package org.example.springsecurity.repo;
 
 import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserCredentials;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,4 +17,15 @@ public interface Userrepo extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Everything login needs in one round trip, without loading the entity into the persistence context
+    @Query("SELECT new org.example.springsecurity.model.UserCredentials(" +
+            "u.id, u.username, u.email, u.password, u.emailVerified, u.enabled) FROM User u WHERE u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    // Only replaces the hash it was computed from, so a concurrent password reset always wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.example.springsecurity.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timers for the authentication hot paths, created once so recording never goes through a registry lookup.
+ * Every timer also counts its events, so failures are read from the {@code outcome} tag rather than from
+ * separate counters. Scraped from {@code /actuator/prometheus}.
+ */
+@Component
+public class AuthMetrics {
+
+    public enum OtpOutcome {
+        SUCCESS,
+        // wrong code for a live OTP
+        INVALID,
+        // no live OTP of that type: expired, already used or never issued
+        EXPIRED,
+        // rejected by the attempt lockout without a lookup
+        LOCKED
+    }
+
+    private final MeterRegistry registry;
+    private final Timer jwtSign;
+    private final Timer jwtVerifyValid;
+    private final Timer jwtVerifyRejected;
+    private final Timer jwtFilter;
+    private final Timer passwordHash;
+    private final Timer passwordMatch;
+    private final Timer passwordMismatch;
+    private final Timer emailSent;
+    private final Timer emailFailed;
+    private final Map<OtpRecord.OtpType, Timer> otpIssue = new EnumMap<>(OtpRecord.OtpType.class);
+    private final Map<OtpRecord.OtpType, Map<OtpOutcome, Timer>> otpVerify = new EnumMap<>(OtpRecord.OtpType.class);
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        jwtSign = timer("auth.jwt.sign", "Time to build and sign a JWT");
+        jwtVerifyValid = timer("auth.jwt.verify", "Time to parse and verify a JWT", "outcome", "valid");
+        jwtVerifyRejected = timer("auth.jwt.verify", "Time to parse and verify a JWT", "outcome", "rejected");
+        jwtFilter = timer("auth.jwt.filter", "Time spent in JwtFilter itself, excluding the rest of the chain");
+        passwordHash = timer("auth.password.hash", "BCrypt encode time on the hashing pool");
+        passwordMatch = timer("auth.password.match", "BCrypt match time on the hashing pool", "outcome", "match");
+        passwordMismatch = timer("auth.password.match", "BCrypt match time on the hashing pool", "outcome", "mismatch");
+        emailSent = timer("auth.email.send", "OTP email send latency", "outcome", "success");
+        emailFailed = timer("auth.email.send", "OTP email send latency", "outcome", "failure");
+        for (OtpRecord.OtpType type : OtpRecord.OtpType.values()) {
+            otpIssue.put(type, timer("auth.otp.issue", "Time to generate and store an OTP", "type", type.name()));
+            Map<OtpOutcome, Timer> byOutcome = new EnumMap<>(OtpOutcome.class);
+            for (OtpOutcome outcome : OtpOutcome.values()) {
+                byOutcome.put(outcome, timer("auth.otp.verify", "OTP verification time",
+                        "type", type.name(), "outcome", outcome.name().toLowerCase()));
+            }
+            otpVerify.put(type, byOutcome);
+        }
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public Timer jwtSign() {
+        return jwtSign;
+    }
+
+    public Timer jwtVerify(boolean valid) {
+        return valid ? jwtVerifyValid : jwtVerifyRejected;
+    }
+
+    public Timer jwtFilter() {
+        return jwtFilter;
+    }
+
+    public Timer passwordHash() {
+        return passwordHash;
+    }
+
+    public Timer passwordMatch(boolean matched) {
+        return matched ? passwordMatch : passwordMismatch;
+    }
+
+    public Timer emailSend(boolean succeeded) {
+        return succeeded ? emailSent : emailFailed;
+    }
+
+    public Timer otpIssue(OtpRecord.OtpType type) {
+        return otpIssue.get(type);
+    }
+
+    public Timer otpVerify(OtpRecord.OtpType type, OtpOutcome outcome) {
+        return otpVerify.get(type).get(outcome);
+    }
+}
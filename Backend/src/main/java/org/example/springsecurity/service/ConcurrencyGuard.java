@@ -0,0 +1,43 @@
+package org.example.springsecurity.service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many threads use a scarce resource at once. With virtual threads there is no thread pool
+ * left to do that, so callers take a permit here before touching JDBC or SMTP.
+ */
+public class ConcurrencyGuard {
+
+    private final String name;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public ConcurrencyGuard(String name, int maxConcurrency, Duration acquireTimeout) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    // Waits up to the acquire timeout; false means the resource stayed saturated the whole time
+    public boolean tryAcquire() throws InterruptedException {
+        return permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.springsecurity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.EmailOutboxMessage;
+import org.example.springsecurity.repo.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for OTP emails. Messages are written in the caller's transaction and handed to
+ * {@link OtpEmailDispatcher} after commit, so SMTP never runs while a request holds a database connection.
+ */
+@Service
+@Profile("!reactive")
+@Slf4j
+public class EmailOutboxService {
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${email-outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email-outbox.lease:PT1M}")
+    private Duration lease;
+
+    @Value("${email-outbox.retry-backoff:PT10S}")
+    private Duration retryBackoff;
+
+    @Value("${email-outbox.failed-retention:P1D}")
+    private Duration failedRetention;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String otp, String purpose) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(recipient);
+        message.setOtp(otp);
+        message.setPurpose(purpose);
+        message.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(message);
+
+        eventPublisher.publishEvent(new OtpEmailQueuedEvent(message.getId()));
+    }
+
+    // Claimed messages are leased rather than held under a row lock, so the SMTP send happens outside any transaction
+    @Transactional
+    public List<EmailOutboxMessage> claimBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> messages = outboxRepository.lockDueMessages(now, batchSize);
+        for (EmailOutboxMessage message : messages) {
+            message.setAttempts(message.getAttempts() + 1);
+            message.setNextAttemptAt(now.plus(lease));
+        }
+        return outboxRepository.saveAll(messages);
+    }
+
+    @Transactional
+    public void markSent(EmailOutboxMessage message) {
+        outboxRepository.deleteById(message.getId());
+    }
+
+    @Transactional
+    public void markFailed(EmailOutboxMessage message, Exception error) {
+        message.setLastError(String.valueOf(error.getMessage()));
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(EmailOutboxMessage.Status.FAILED);
+            // the code will never be sent, so it has no reason to stay readable in the table
+            message.setOtp(null);
+            log.error("Giving up on OTP email to {} after {} attempts", message.getRecipient(), message.getAttempts());
+        } else {
+            // exponential backoff: 1x, 2x, 4x ... the base delay
+            long delayMillis = retryBackoff.toMillis() << (message.getAttempts() - 1);
+            message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delayMillis)));
+        }
+        outboxRepository.save(message);
+    }
+
+    // FAILED rows are only kept long enough to look into the delivery error
+    @Scheduled(fixedDelayString = "${email-outbox.failed-cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeFailed() {
+        int deleted = outboxRepository.deleteByStatusCreatedBefore(EmailOutboxMessage.Status.FAILED,
+                LocalDateTime.now().minus(failedRetention));
+        if (deleted > 0) {
+            log.info("Purged {} failed OTP emails from the outbox", deleted);
+        }
+    }
+
+    public record OtpEmailQueuedEvent(Long messageId) {
+    }
+}
@@ -1,12 +1,20 @@
 package org.example.springsecurity.service;
 
+import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Service
 @Slf4j
 public class EmailService {
@@ -14,33 +22,120 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private SmtpConnectionPool connectionPool;
+
+    // Only present in virtual-thread mode; the connection pool already bounds pooled sends
+    @Autowired(required = false)
+    @Qualifier("smtpConcurrencyGuard")
+    private ConcurrencyGuard smtpGuard;
+
+    @Autowired
+    private AuthMetrics metrics;
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
+    // When disabled, every message opens its own SMTP connection through JavaMailSender
+    @Value("${mail.pool.enabled:true}")
+    private boolean poolEnabled;
+
     public void sendOtpEmail(String toEmail, String otp, String purpose) {
+        SendOutcome outcome = sendOtpEmails(List.of(new OtpEmail(toEmail, otp, purpose))).get(0);
+        if (!outcome.succeeded()) {
+            throw new RuntimeException("Failed to send email", outcome.error());
+        }
+    }
+
+    // Sends a batch over one pooled connection; one bad recipient does not fail the rest
+    public List<SendOutcome> sendOtpEmails(List<OtpEmail> emails) {
+        List<SendOutcome> outcomes = new ArrayList<>(emails.size());
+        if (!poolEnabled) {
+            for (OtpEmail email : emails) {
+                long start = System.nanoTime();
+                try {
+                    sendUnpooled(email);
+                    outcomes.add(logged(email, null, System.nanoTime() - start));
+                } catch (Exception e) {
+                    outcomes.add(logged(email, e, System.nanoTime() - start));
+                }
+            }
+            return outcomes;
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<MimeMessage> messages = new ArrayList<>(emails.size());
+            for (OtpEmail email : emails) {
+                MimeMessage mimeMessage = mailSender.createMimeMessage();
+                buildMessage(email).copyTo(new MimeMailMessage(mimeMessage));
+                messages.add(mimeMessage);
+            }
+            List<Exception> errors = connectionPool.sendBatch(messages);
+            // messages in a batch share one connection, so each is charged an equal share of the batch time
+            long share = (System.nanoTime() - start) / emails.size();
+            for (int i = 0; i < emails.size(); i++) {
+                outcomes.add(logged(emails.get(i), errors.get(i), share));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            long share = (System.nanoTime() - start) / emails.size();
+            emails.forEach(email -> outcomes.add(logged(email, e, share)));
+        }
+        return outcomes;
+    }
+
+    private void sendUnpooled(OtpEmail email) throws MessagingException, InterruptedException {
+        if (smtpGuard == null) {
+            mailSender.send(buildMessage(email));
+            return;
+        }
+        if (!smtpGuard.tryAcquire()) {
+            throw new MessagingException("No SMTP slot available within " + smtpGuard.getAcquireTimeout());
+        }
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Your OTP Code");
-
-            String emailBody = String.format(
-                    "Dear User,\n\n" +
-                            "Your OTP code for %s is: %s\n\n" +
-                            "This code is valid for 5 minutes only.\n\n" +
-                            "If you didn't request this code, please ignore this email.\n\n" +
-                            "Best regards,\n" +
-                            "SpringSecurity Team",
-                    purpose, otp
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
-
-            log.info("OTP email sent successfully to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", toEmail, e);
-            throw new RuntimeException("Failed to send email", e);
+            mailSender.send(buildMessage(email));
+        } finally {
+            smtpGuard.release();
+        }
+    }
+
+    private SimpleMailMessage buildMessage(OtpEmail email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(email.toEmail());
+        message.setSubject("Your OTP Code");
+
+        String emailBody = String.format(
+                "Dear User,\n\n" +
+                        "Your OTP code for %s is: %s\n\n" +
+                        "This code is valid for 5 minutes only.\n\n" +
+                        "If you didn't request this code, please ignore this email.\n\n" +
+                        "Best regards,\n" +
+                        "SpringSecurity Team",
+                email.purpose(), email.otp()
+        );
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    private SendOutcome logged(OtpEmail email, Exception error, long elapsedNanos) {
+        metrics.emailSend(error == null).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (error == null) {
+            log.info("OTP email sent successfully to: {}", email.toEmail());
+        } else {
+            log.error("Failed to send OTP email to: {}", email.toEmail(), error);
+        }
+        return new SendOutcome(email, error);
+    }
+
+    public record OtpEmail(String toEmail, String otp, String purpose) {
+    }
+
+    public record SendOutcome(OtpEmail email, Exception error) {
+        public boolean succeeded() {
+            return error == null;
         }
     }
-}
\ No newline at end of file
+}
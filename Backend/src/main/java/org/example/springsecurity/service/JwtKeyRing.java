@@ -0,0 +1,402 @@
+package org.example.springsecurity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Signing keys for {@link JwtService}, persisted in a JSON file so tokens survive restarts and every replica
+ * reading the same file accepts the others' tokens. Tokens carry the key id in their {@code kid} header and are
+ * verified against an in-memory map of the active and retiring keys.
+ *
+ * <p>{@code jwt.signing.algorithm} picks HS256 (shared secret) or ES256 / RS256 (key pairs). With a key pair the
+ * public halves are published by {@link #jwks()}, so other services can verify tokens without the file.
+ *
+ * <p>Every {@code rotation-interval} one node (serialised through a lock file) appends a new key. It only becomes
+ * the signing key after {@code propagation-delay}, by which time the other replicas have reloaded the file; older
+ * keys keep verifying for {@code retention} after they stop signing, so no live token is invalidated.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    private static final Set<SignatureAlgorithm> SUPPORTED =
+            Set.of(SignatureAlgorithm.HS256, SignatureAlgorithm.ES256, SignatureAlgorithm.RS256);
+    private static final int HMAC_KEY_BYTES = 32;
+    // an unknown kid triggers at most one reload per interval, so forged kids cannot force constant file reads
+    private static final Duration UNKNOWN_KID_RELOAD_INTERVAL = Duration.ofSeconds(1);
+
+    // for HS256 signingKey and verificationKey are the same secret; publicJwk is null
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey,
+                             Map<String, Object> publicJwk, Instant createdAt, Instant activatesAt) {
+    }
+
+    // on-disk form, epoch millis keep the file independent of Jackson's time module. secret is the HMAC key or
+    // the PKCS#8 private key, publicKey the X.509 public key; files without algorithm hold HS256 keys
+    record StoredKey(String kid, String algorithm, String secret, String publicKey, long createdAt, long activatesAt) {
+    }
+
+    record KeyFile(List<StoredKey> keys) {
+    }
+
+    private final Path file;
+    private final Path lockFile;
+    private final SignatureAlgorithm algorithm;
+    private final Duration rotationInterval;
+    private final Duration propagationDelay;
+    private final Duration retention;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    // replaced wholesale on reload; newest key first
+    private volatile List<SigningKey> keys = List.of();
+    private volatile Map<String, SigningKey> byKid = Map.of();
+    private volatile Map<String, Object> jwks = Map.of("keys", List.of());
+    private volatile FileTime loadedModified;
+    private volatile Instant lastUnknownKidReload = Instant.EPOCH;
+
+    @Autowired
+    public JwtKeyRing(@Value("${jwt.keys.file:./config/jwt-keys.json}") Path file,
+                      @Value("${jwt.signing.algorithm:HS256}") SignatureAlgorithm algorithm,
+                      @Value("${jwt.keys.rotation-interval:P7D}") Duration rotationInterval,
+                      @Value("${jwt.keys.propagation-delay:PT2M}") Duration propagationDelay,
+                      @Value("${jwt.keys.retention:PT1H}") Duration retention,
+                      ObjectMapper objectMapper) {
+        this(file, algorithm, rotationInterval, propagationDelay, retention, objectMapper, Clock.systemUTC());
+    }
+
+    JwtKeyRing(Path file, SignatureAlgorithm algorithm, Duration rotationInterval, Duration propagationDelay,
+               Duration retention, ObjectMapper objectMapper, Clock clock) {
+        if (!SUPPORTED.contains(algorithm)) {
+            throw new IllegalArgumentException("jwt.signing.algorithm must be one of " + SUPPORTED + ", got " + algorithm);
+        }
+        this.file = file.toAbsolutePath();
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.propagationDelay = propagationDelay;
+        this.retention = retention;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        // the first key of a new ring is usable at once: there is nobody to propagate to yet
+        withFileLock(() -> {
+            List<StoredKey> stored = read();
+            if (stored.isEmpty()) {
+                stored = List.of(newKey(Duration.ZERO));
+                write(stored);
+                log.info("Created JWT key ring at {}", this.file);
+            }
+            install(stored);
+        });
+    }
+
+    // Newest key that has passed its propagation delay
+    public SigningKey signingKey() {
+        Instant now = clock.instant();
+        for (SigningKey key : keys) {
+            if (!key.activatesAt().isAfter(now)) {
+                return key;
+            }
+        }
+        // only possible if every key is still propagating, e.g. the file was edited by hand
+        return keys.get(keys.size() - 1);
+    }
+
+    // O(1) lookup; a kid we have not seen yet may have been added by another replica, so reload once
+    public SigningKey verificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        SigningKey key = byKid.get(kid);
+        if (key == null) {
+            Instant now = clock.instant();
+            if (now.isAfter(lastUnknownKidReload.plus(UNKNOWN_KID_RELOAD_INTERVAL))) {
+                lastUnknownKidReload = now;
+                reload();
+                key = byKid.get(kid);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Picks up keys written by other replicas, rotates when the newest key is older than the rotation interval
+     * or uses another algorithm than configured, and drops keys whose retention has passed. Safe to run on every
+     * node at once.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.check-interval-ms:30000}")
+    public void maintain() {
+        reloadIfChanged();
+        Instant now = clock.instant();
+        SigningKey newest = keys.get(0);
+        if (newest.createdAt().plus(rotationInterval).isAfter(now) && !switchesAlgorithm(newest.algorithm(),
+                newest.activatesAt(), now) && !hasExpiredKeys(now)) {
+            return;
+        }
+        withFileLock(() -> {
+            // re-read under the lock: another replica may have rotated in the meantime
+            List<StoredKey> stored = new ArrayList<>(read());
+            StoredKey latest = stored.stream().max(Comparator.comparingLong(StoredKey::createdAt)).orElseThrow();
+            boolean changed = false;
+            if (!Instant.ofEpochMilli(latest.createdAt()).plus(rotationInterval).isAfter(now)
+                    || switchesAlgorithm(algorithmOf(latest), Instant.ofEpochMilli(latest.activatesAt()), now)) {
+                StoredKey key = newKey(propagationDelay);
+                stored.add(key);
+                changed = true;
+                log.info("Rotated JWT signing key, {} signs from {}", key.kid(), Instant.ofEpochMilli(key.activatesAt()));
+            }
+            List<StoredKey> snapshot = List.copyOf(stored);
+            changed |= stored.removeIf(key -> isExpired(key, snapshot, now));
+            if (changed) {
+                write(stored);
+            }
+            install(stored);
+        });
+    }
+
+    public List<SigningKey> keys() {
+        return keys;
+    }
+
+    /**
+     * JWK set of the public keys in the ring, including keys that do not sign yet, so verifiers that cache it
+     * know a new kid before the first token carries it. Empty with HS256, whose secret must never be published.
+     */
+    public Map<String, Object> jwks() {
+        return jwks;
+    }
+
+    // A changed jwt.signing.algorithm rotates straight away, but only once the newest key is active, so replicas
+    // briefly configured differently during a rollout cannot rotate against each other on every check
+    private boolean switchesAlgorithm(SignatureAlgorithm newest, Instant activatesAt, Instant now) {
+        return newest != algorithm && !activatesAt.isAfter(now);
+    }
+
+    private void reloadIfChanged() {
+        try {
+            if (!Files.getLastModifiedTime(file).equals(loadedModified)) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Could not check JWT key ring {}: {}", file, e.getMessage());
+        }
+    }
+
+    // a failed read keeps the keys already in memory
+    private void reload() {
+        try {
+            List<StoredKey> stored = read();
+            if (!stored.isEmpty()) {
+                install(stored);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Could not reload JWT key ring from {}: {}", file, e.getMessage());
+        }
+    }
+
+    // keys is sorted newest first, so any key but the oldest that is past retention makes an older one prunable
+    private boolean hasExpiredKeys(Instant now) {
+        List<SigningKey> current = keys;
+        for (int i = 0; i < current.size() - 1; i++) {
+            if (!current.get(i).activatesAt().plus(retention).isAfter(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A key can go once a newer key has been signing for longer than the retention
+    private boolean isExpired(StoredKey key, List<StoredKey> all, Instant now) {
+        return all.stream().anyMatch(other -> other.createdAt() > key.createdAt()
+                && !Instant.ofEpochMilli(other.activatesAt()).plus(retention).isAfter(now));
+    }
+
+    private StoredKey newKey(Duration activationDelay) {
+        Instant now = clock.instant();
+        String secret;
+        String publicKey = null;
+        if (algorithm.isHmac()) {
+            byte[] bytes = new byte[HMAC_KEY_BYTES];
+            random.nextBytes(bytes);
+            secret = Base64.getEncoder().encodeToString(bytes);
+        } else {
+            KeyPair pair = generateKeyPair();
+            secret = Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded());
+            publicKey = Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
+        }
+        return new StoredKey(UUID.randomUUID().toString(), algorithm.getValue(), secret, publicKey,
+                now.toEpochMilli(), now.plus(activationDelay).toEpochMilli());
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator;
+            if (algorithm.isEllipticCurve()) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"), random);
+            } else {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048, random);
+            }
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key pair", e);
+        }
+    }
+
+    private void install(List<StoredKey> stored) {
+        List<SigningKey> loaded = stored.stream()
+                .map(this::decode)
+                .sorted(Comparator.comparing(SigningKey::createdAt).thenComparing(SigningKey::activatesAt).reversed())
+                .toList();
+        Map<String, SigningKey> index = new HashMap<>();
+        loaded.forEach(key -> index.put(key.kid(), key));
+        keys = loaded;
+        byKid = Map.copyOf(index);
+        jwks = Map.of("keys", loaded.stream().map(SigningKey::publicJwk).filter(jwk -> jwk != null).toList());
+        try {
+            loadedModified = Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            loadedModified = null;
+        }
+    }
+
+    private static SignatureAlgorithm algorithmOf(StoredKey key) {
+        return key.algorithm() != null ? SignatureAlgorithm.forName(key.algorithm()) : SignatureAlgorithm.HS256;
+    }
+
+    private SigningKey decode(StoredKey stored) {
+        SignatureAlgorithm keyAlgorithm = algorithmOf(stored);
+        Instant createdAt = Instant.ofEpochMilli(stored.createdAt());
+        Instant activatesAt = Instant.ofEpochMilli(stored.activatesAt());
+        byte[] secret = Base64.getDecoder().decode(stored.secret());
+        if (keyAlgorithm.isHmac()) {
+            Key key = new SecretKeySpec(secret, keyAlgorithm.getJcaName());
+            return new SigningKey(stored.kid(), keyAlgorithm, key, key, null, createdAt, activatesAt);
+        }
+        try {
+            KeyFactory factory = KeyFactory.getInstance(keyAlgorithm.isEllipticCurve() ? "EC" : "RSA");
+            PublicKey publicKey = factory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(stored.publicKey())));
+            return new SigningKey(stored.kid(), keyAlgorithm, factory.generatePrivate(new PKCS8EncodedKeySpec(secret)),
+                    publicKey, toJwk(stored.kid(), keyAlgorithm, publicKey), createdAt, activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode JWT key " + stored.kid(), e);
+        }
+    }
+
+    // RFC 7517/7518 public JWK
+    private static Map<String, Object> toJwk(String kid, SignatureAlgorithm keyAlgorithm, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", keyAlgorithm.getValue());
+        if (publicKey instanceof ECPublicKey ec) {
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", base64Url(ec.getW().getAffineX(), 32));
+            jwk.put("y", base64Url(ec.getW().getAffineY(), 32));
+        } else if (publicKey instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsa.getModulus(), (rsa.getModulus().bitLength() + 7) / 8));
+            jwk.put("e", base64Url(rsa.getPublicExponent(), (rsa.getPublicExponent().bitLength() + 7) / 8));
+        }
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // unsigned big-endian, left-padded to length bytes
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, padded, length - copy, copy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    private List<StoredKey> read() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            KeyFile keyFile = objectMapper.readValue(file.toFile(), KeyFile.class);
+            return keyFile.keys() != null ? keyFile.keys() : List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read JWT key ring " + file, e);
+        }
+    }
+
+    // Written to a temp file and moved into place, so readers never see a half-written ring
+    private void write(List<StoredKey> stored) {
+        try {
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            restrictPermissions(temp);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), new KeyFile(stored));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write JWT key ring " + file, e);
+        }
+    }
+
+    private static void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+
+    private synchronized void withFileLock(Runnable action) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                action.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot lock JWT key ring " + file, e);
+        }
+    }
+}
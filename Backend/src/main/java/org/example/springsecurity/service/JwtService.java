@@ -1,87 +1,131 @@
 package org.example.springsecurity.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserPrinicipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
 import java.security.Key;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
+@Slf4j
 public class JwtService {
 
-    private String secretKey;
+    static final String ROLES_CLAIM = "roles";
+    static final String ENABLED_CLAIM = "enabled";
+    static final String EMAIL_VERIFIED_CLAIM = "emailVerified";
+    // iat only has second precision; revocation watermarks need to order tokens within the same second
+    static final String ISSUED_AT_MS_CLAIM = "iatMs";
 
-    public JwtService() {
-        secretKey = this.generateSecretKey();
-    }
+    static final long TOKEN_VALIDITY_MS = 1000 * 60 * 3;
 
-    public String generateSecretKey() {
-        try {
-            KeyGenerator keygen = KeyGenerator.getInstance("HmacSHA256");
-            SecretKey secretKey = keygen.generateKey();
-            System.out.println("secretKey:" + secretKey.toString());
-            return Base64.getEncoder().encodeToString(secretKey.getEncoded());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+    private final JwtKeyRing keyRing;
+
+    // JwtParser is immutable and thread-safe once built, so a single instance serves every request;
+    // the signing key is looked up per token from its kid header
+    private final JwtParser parser;
+
+    @Autowired
+    private AuthMetrics metrics;
+
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        JwtKeyRing.SigningKey key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key: " + header.getKeyId());
+                        }
+                        // the header must name the key's own algorithm, e.g. no HS256 token "signed" with a public key
+                        if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+                            throw new JwtException("Algorithm " + header.getAlgorithm() + " does not match key " + key.kid());
+                        }
+                        return key.verificationKey();
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username) {
+        return buildToken(username, new HashMap<>());
+    }
+
+    // Signs the principal state JwtFilter needs, so protected requests can skip the user lookup
+    public String generateToken(User user) {
+        List<String> roles = new UserPrinicipal(user).getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
         Map<String, Object> claims = new HashMap<>();
-        return Jwts.builder()
+        claims.put(ROLES_CLAIM, roles);
+        claims.put(ENABLED_CLAIM, user.isEnabled());
+        claims.put(EMAIL_VERIFIED_CLAIM, user.isEmailVerified());
+        return buildToken(user.getUsername(), claims);
+    }
+
+    private String buildToken(String username, Map<String, Object> claims) {
+        Timer.Sample sample = metrics.start();
+        long now = System.currentTimeMillis();
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
+                // unique id, so a single token can be revoked (TokenRevocationService)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 3))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .claim(ISSUED_AT_MS_CLAIM, now)
+                .setExpiration(new Date(now + TOKEN_VALIDITY_MS))
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
+        sample.stop(metrics.jwtSign());
+        return token;
     }
 
-    private Key getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Parses the token and checks its signature and expiry in a single pass.
+     * Returns empty for malformed, tampered or expired tokens.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        Timer.Sample sample = metrics.start();
+        try {
+            VerifiedToken verified = VerifiedToken.from(parser.parseClaimsJws(token).getBody());
+            sample.stop(metrics.jwtVerify(true));
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            sample.stop(metrics.jwtVerify(false));
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
     }
 
     public String extractUserName(String token) {
         // extract the username from jwt token
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        // the parser already rejects expired tokens, so a successful verify is all that is left to check
+        return verify(token)
+                .map(verified -> verified.subject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 }
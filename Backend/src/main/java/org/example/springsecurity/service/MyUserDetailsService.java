@@ -2,22 +2,23 @@ package org.example.springsecurity.service;
 
 import org.example.springsecurity.model.User;
 import org.example.springsecurity.model.UserPrinicipal; // Correct import - your custom class
-import org.example.springsecurity.repo.Userrepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
+@Profile("!reactive")
 public class MyUserDetailsService implements UserDetailsService {
 
     @Autowired
-    private Userrepo repo;
+    private UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = repo.findByUsername(username);
+        User user = userCache.findByUsername(username).orElse(null);
         if (user == null) {
             System.out.println("user not found");
             throw new UsernameNotFoundException("user not found");
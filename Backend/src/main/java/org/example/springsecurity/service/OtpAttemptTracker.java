@@ -0,0 +1,57 @@
+package org.example.springsecurity.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Counts failed OTP verifications per email and OTP type in memory. Once a pair reaches
+ * {@code otp.attempts.max-failures} it is locked out: verify calls are rejected without touching the OTP store
+ * until a new code of that type is issued or {@code otp.attempts.lockout} passes without another failure.
+ */
+@Component
+@Slf4j
+public class OtpAttemptTracker {
+
+    private final Cache<String, Integer> failures;
+    private final int maxFailures;
+
+    public OtpAttemptTracker(@Value("${otp.attempts.max-failures:5}") int maxFailures,
+                             @Value("${otp.attempts.lockout:PT5M}") Duration lockout,
+                             @Value("${otp.attempts.max-tracked:100000}") long maxTracked) {
+        this.maxFailures = maxFailures;
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(lockout)
+                .build();
+    }
+
+    public boolean isLockedOut(String email, OtpRecord.OtpType type) {
+        Integer count = failures.getIfPresent(key(email, type));
+        return count != null && count >= maxFailures;
+    }
+
+    // Returns true when this failure is the one that locks the email out
+    public boolean recordFailure(String email, OtpRecord.OtpType type) {
+        Integer count = failures.asMap().merge(key(email, type), 1, Integer::sum);
+        return count == maxFailures;
+    }
+
+    // Called on successful verification and whenever a new code is issued
+    public void reset(String email, OtpRecord.OtpType type) {
+        failures.invalidate(key(email, type));
+    }
+
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    private static String key(String email, OtpRecord.OtpType type) {
+        return type.name() + ':' + email;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.springsecurity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.EmailOutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Drains the email outbox on the taskExecutor. A drain is kicked off as soon as an OTP transaction commits;
+ * the periodic poll picks up retries and anything left behind by a restart or a rejected hand-off.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class OtpEmailDispatcher {
+
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${email-outbox.batch-size:20}")
+    private int batchSize;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOtpEmailQueued(EmailOutboxService.OtpEmailQueuedEvent event) {
+        try {
+            taskExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("Email executor busy, message {} will go out with the next poll", event.messageId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email-outbox.poll-interval-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    public void drain() {
+        List<EmailOutboxMessage> batch;
+        do {
+            batch = outboxService.claimBatch(batchSize);
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // The whole claimed batch goes out over one pooled SMTP connection
+    private void deliver(List<EmailOutboxMessage> batch) {
+        List<EmailService.OtpEmail> emails = batch.stream()
+                .map(message -> new EmailService.OtpEmail(message.getRecipient(), message.getOtp(), message.getPurpose()))
+                .toList();
+        List<EmailService.SendOutcome> outcomes = emailService.sendOtpEmails(emails);
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutboxMessage message = batch.get(i);
+            if (outcomes.get(i).succeeded()) {
+                outboxService.markSent(message);
+            } else {
+                log.warn("OTP email to {} failed (attempt {})", message.getRecipient(), message.getAttempts());
+                outboxService.markFailed(message, outcomes.get(i).error());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.springsecurity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Keyed HMAC-SHA256 digests of OTP codes, so otp_records (or Redis) never holds a usable code. The email and
+ * type are part of the MAC input, which means a digest cannot be replayed against another row.
+ * Set {@code otp.hmac.secret} (base64, at least 32 bytes) to the same value on every node. A random per-process key
+ * would make codes verify only on the node that issued them, until it restarts, so startup fails without a secret
+ * unless the store is node-local ({@code otp.store=memory}) or {@code otp.hmac.allow-random-key} is set.
+ */
+@Component
+@Slf4j
+public class OtpHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final HexFormat HEX = HexFormat.of();
+
+    // initialised once; each call works on a clone because Mac is not thread-safe
+    private final Mac prototype;
+
+    public OtpHasher(@Value("${otp.hmac.secret:}") String secret,
+                     @Value("${otp.store:jdbc}") String store,
+                     @Value("${otp.hmac.allow-random-key:false}") boolean allowRandomKey) {
+        try {
+            Key key;
+            if (secret.isBlank()) {
+                if (!"memory".equals(store) && !allowRandomKey) {
+                    throw new IllegalStateException("otp.hmac.secret must be set when otp.store=" + store
+                            + " (shared between nodes and restarts); set otp.hmac.allow-random-key=true to override");
+                }
+                log.warn("otp.hmac.secret is not set; using a random key, OTPs will not verify on other nodes or after a restart");
+                key = KeyGenerator.getInstance(ALGORITHM).generateKey();
+            } else {
+                byte[] bytes = Base64.getDecoder().decode(secret);
+                if (bytes.length < 32) {
+                    throw new IllegalStateException("otp.hmac.secret must decode to at least 32 bytes");
+                }
+                key = new SecretKeySpec(bytes, ALGORITHM);
+            }
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise OTP HMAC", e);
+        }
+    }
+
+    public String digest(String email, OtpRecord.OtpType type, String otp) {
+        return HEX.formatHex(mac(email, type, otp));
+    }
+
+    // Constant-time comparison of the presented code against a stored digest
+    public boolean matches(String email, OtpRecord.OtpType type, String otp, String storedDigest) {
+        byte[] expected;
+        try {
+            expected = HEX.parseHex(storedDigest);
+        } catch (IllegalArgumentException e) {
+            // e.g. a plaintext code stored before digests were introduced
+            return false;
+        }
+        return MessageDigest.isEqual(expected, mac(email, type, otp));
+    }
+
+    private byte[] mac(String email, OtpRecord.OtpType type, String otp) {
+        try {
+            Mac mac = (Mac) prototype.clone();
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(type.name().getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) 0);
+            return mac.doFinal(otp.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
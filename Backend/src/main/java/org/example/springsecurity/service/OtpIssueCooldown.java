@@ -0,0 +1,98 @@
+package org.example.springsecurity.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.OtpRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes OTP issuance idempotent for {@code otp.issue.cooldown}: once a code has been issued for an email and type,
+ * further requests (double clicks, client retries) are answered from memory without a new code, database write
+ * or email, because the code already sent is still live. Entries are dropped when that code is consumed or
+ * invalidated, so the next flow always gets a fresh one. Tracked per node; keep the cooldown well below the
+ * OTP expiry.
+ */
+@Component
+@Slf4j
+public class OtpIssueCooldown implements MeterBinder {
+
+    private final Cache<String, Boolean> recentlyIssued;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public OtpIssueCooldown(@Value("${otp.issue.cooldown:PT30S}") Duration cooldown,
+                            @Value("${otp.issue.max-tracked:100000}") long maxTracked) {
+        this.recentlyIssued = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(cooldown)
+                .build();
+    }
+
+    /**
+     * Returns true if the caller should issue a new code, false if one was issued within the cooldown.
+     * Inside a transaction the slot is released again on rollback, so a failed issue can be retried at once.
+     */
+    public boolean tryAcquire(String email, OtpRecord.OtpType type) {
+        if (recentlyIssued.asMap().putIfAbsent(key(email, type), Boolean.TRUE) != null) {
+            suppressed.increment();
+            return false;
+        }
+        issued.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(email, type);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Called once the live code is used up or invalidated
+    public void release(String email, OtpRecord.OtpType type) {
+        recentlyIssued.invalidate(key(email, type));
+    }
+
+    public long issuedCount() {
+        return issued.sum();
+    }
+
+    public long suppressedCount() {
+        return suppressed.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.otp.issue.requests", this, OtpIssueCooldown::issuedCount)
+                .description("OTP issue requests by whether a new code was sent")
+                .tag("outcome", "issued")
+                .register(registry);
+        FunctionCounter.builder("auth.otp.issue.requests", this, OtpIssueCooldown::suppressedCount)
+                .description("OTP issue requests by whether a new code was sent")
+                .tag("outcome", "suppressed")
+                .register(registry);
+    }
+
+    @Scheduled(fixedRateString = "${otp.issue.stats-log-interval-ms:300000}")
+    public void logStats() {
+        log.info("OTP issuance: issued={}, suppressedDuplicates={}", issuedCount(), suppressedCount());
+    }
+
+    private static String key(String email, OtpRecord.OtpType type) {
+        return type.name() + ':' + email;
+    }
+}
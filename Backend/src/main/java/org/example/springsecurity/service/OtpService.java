@@ -1,27 +1,42 @@
 package org.example.springsecurity.service;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.example.springsecurity.model.OtpRecord;
-import org.example.springsecurity.repo.OtpRepository;
+import org.example.springsecurity.repo.ActiveOtp;
+import org.example.springsecurity.repo.OtpStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.Optional;
 
 @Service
+@Profile("!reactive")
 @Slf4j
 public class OtpService {
 
     @Autowired
-    private OtpRepository otpRepository;
+    private OtpStore otpStore;
 
     @Autowired
-    private EmailService emailService;
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private OtpAttemptTracker attemptTracker;
+
+    @Autowired
+    private OtpHasher otpHasher;
+
+    @Autowired
+    private OtpIssueCooldown issueCooldown;
+
+    @Autowired
+    private AuthMetrics metrics;
 
     private final SecureRandom random = new SecureRandom();
     private static final int OTP_LENGTH = 6;
@@ -37,53 +52,32 @@ public class OtpService {
 
     @Transactional
     public void sendOtp(String email, OtpRecord.OtpType type) {
-        // Mark all existing OTPs for this email as used
-        otpRepository.markAllOtpsAsUsedForEmail(email);
-
-        // Generate new OTP
-        String otp = generateOtp();
-        LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES);
-
-        // Save OTP record
-        OtpRecord otpRecord = new OtpRecord();
-        otpRecord.setEmail(email);
-        otpRecord.setOtp(otp);
-        otpRecord.setExpiryTime(expiryTime);
-        otpRecord.setType(type);
-        otpRecord.setUsed(false);
-        otpRecord.setCreatedAt(LocalDateTime.now());
+        if (!issueCooldown.tryAcquire(email, type)) {
+            log.info("Duplicate {} OTP request within cooldown for email: {}, live code kept", type, email);
+            return;
+        }
 
-        otpRepository.save(otpRecord);
+        String otp = issueOtp(email, type);
 
-        // Send email asynchronously
-        sendOtpEmailAsync(email, otp, type.toString().toLowerCase());
+        // Queue the email in this transaction; it is sent after commit
+        emailOutboxService.enqueue(email, otp, type.purpose());
 
         log.info("OTP generated and sent for email: {}", email);
     }
 
     // Method that your controller is calling
+    @Transactional
     public String generateAndSendOtp(String email) {
         try {
-            // Mark all existing OTPs for this email as used
-            otpRepository.markAllOtpsAsUsedForEmail(email);
-
-            // Generate new OTP
-            String otp = generateOtp();
-            LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES);
-
-            // Save OTP record
-            OtpRecord otpRecord = new OtpRecord();
-            otpRecord.setEmail(email);
-            otpRecord.setOtp(otp);
-            otpRecord.setExpiryTime(expiryTime);
-            otpRecord.setType(OtpRecord.OtpType.LOGIN);
-            otpRecord.setUsed(false);
-            otpRecord.setCreatedAt(LocalDateTime.now());
+            if (!issueCooldown.tryAcquire(email, OtpRecord.OtpType.LOGIN)) {
+                log.info("Duplicate LOGIN OTP request within cooldown for email: {}, live code kept", email);
+                return "OTP sent successfully to your email.";
+            }
 
-            otpRepository.save(otpRecord);
+            String otp = issueOtp(email, OtpRecord.OtpType.LOGIN);
 
-            // Send email asynchronously
-            sendOtpEmailAsync(email, otp, "login");
+            // Queue the email in this transaction; it is sent after commit
+            emailOutboxService.enqueue(email, otp, "login");
 
             log.info("OTP generated and sent for email: {}", email);
             return "OTP sent successfully to your email.";
@@ -93,45 +87,58 @@ public class OtpService {
         }
     }
 
-    @Async
-    protected void sendOtpEmailAsync(String email, String otp, String purpose) {
-        try {
-            emailService.sendOtpEmail(email, otp, purpose);
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", email, e);
-        }
+    // Generates a new OTP and stores its digest, invalidating any earlier code of this type for the email
+    private String issueOtp(String email, OtpRecord.OtpType type) {
+        Timer.Sample sample = metrics.start();
+        String otp = generateOtp();
+        otpStore.issue(email, type, otpHasher.digest(email, type, otp), Duration.ofMinutes(OTP_EXPIRY_MINUTES));
+        attemptTracker.reset(email, type);
+        sample.stop(metrics.otpIssue(type));
+        return otp;
     }
 
-    @Transactional
-    public boolean verifyOtp(String email, String otp) {
-        Optional<OtpRecord> otpRecordOpt = otpRepository
-                .findByEmailAndOtpAndUsedFalseAndExpiryTimeAfter(email, otp, LocalDateTime.now());
-
-        if (otpRecordOpt.isPresent()) {
-            OtpRecord otpRecord = otpRecordOpt.get();
-            otpRecord.setUsed(true);
-            otpRepository.save(otpRecord);
+    // Only a live code issued for the expected flow is accepted; codes of other types are left untouched
+    public boolean verifyOtp(String email, String otp, OtpRecord.OtpType type) {
+        Timer.Sample sample = metrics.start();
+        // a locked-out email is rejected without a store round trip, even if the guess is right
+        if (attemptTracker.isLockedOut(email, type)) {
+            sample.stop(metrics.otpVerify(type, AuthMetrics.OtpOutcome.LOCKED));
+            log.warn("{} OTP verification rejected for locked-out email: {}", type, email);
+            return false;
+        }
 
-            log.info("OTP verified successfully for email: {}", email);
+        // fetch by (email, type) and compare digests here in constant time; the code never reaches a query
+        Optional<ActiveOtp> active = otpStore.findActive(email, type);
+        if (active.isPresent()
+                && otpHasher.matches(email, type, otp, active.get().digest())
+                && otpStore.markUsed(active.get())) {
+            attemptTracker.reset(email, type);
+            issueCooldown.release(email, type);
+            sample.stop(metrics.otpVerify(type, AuthMetrics.OtpOutcome.SUCCESS));
+            log.info("{} OTP verified successfully for email: {}", type, email);
             return true;
         }
 
-        log.warn("OTP verification failed for email: {}", email);
+        otpStore.recordFailedAttempt(email, type, attemptTracker.getMaxFailures());
+        if (attemptTracker.recordFailure(email, type)) {
+            otpStore.invalidate(email, type);
+            issueCooldown.release(email, type);
+            log.warn("{} OTP invalidated after {} failed attempts for email: {}", type, attemptTracker.getMaxFailures(), email);
+        } else {
+            log.warn("{} OTP verification failed for email: {}", type, email);
+        }
+        sample.stop(metrics.otpVerify(type, active.isPresent() ? AuthMetrics.OtpOutcome.INVALID : AuthMetrics.OtpOutcome.EXPIRED));
         return false;
     }
 
-    public boolean hasValidOtp(String email) {
-        Optional<OtpRecord> otpRecord = otpRepository
-                .findTopByEmailAndUsedFalseAndExpiryTimeAfterOrderByCreatedAtDesc(
-                        email, LocalDateTime.now());
-        return otpRecord.isPresent();
+    public boolean hasValidOtp(String email, OtpRecord.OtpType type) {
+        return otpStore.hasValidOtp(email, type);
     }
 
-    // Cleanup expired OTPs every hour
-    @Scheduled(fixedRate = 3600000) // 1 hour
-    @Transactional
+    // Short interval with small batches instead of one large hourly delete
+    @Scheduled(fixedDelayString = "${otp.cleanup.interval-ms:60000}")
     public void cleanupExpiredOtps() {
-        otpRepository.deleteExpiredOtps(LocalDateTime.now());
+        otpStore.deleteExpired();
         log.debug("Cleaned up expired OTPs");
     }
 }
\ No newline at end of file
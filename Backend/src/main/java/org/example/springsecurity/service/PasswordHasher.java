@@ -0,0 +1,70 @@
+package org.example.springsecurity.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.example.springsecurity.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and matching on the dedicated passwordHashExecutor so BCrypt never occupies
+ * servlet threads. When the pool's queue is full the returned future fails with {@link ServiceBusyException},
+ * whose Retry-After is roughly how long the pool needs to work through its current queue.
+ */
+@Service
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Executor executor;
+    private final AuthMetrics metrics;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordHashExecutor") Executor executor,
+                          AuthMetrics metrics) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    // Timers cover the BCrypt work only; time spent queued shows up in the executor metrics
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> metrics.passwordHash().record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> {
+            Timer.Sample sample = metrics.start();
+            boolean matched = passwordEncoder.matches(rawPassword, encodedPassword);
+            sample.stop(metrics.passwordMatch(matched));
+            return matched;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ServiceBusyException(
+                    "Too many authentication requests, please retry shortly", e, retryAfterSeconds()));
+        }
+    }
+
+    // Queued hashes spread over every pool thread, at the mean BCrypt time recorded so far
+    private long retryAfterSeconds() {
+        if (!(executor instanceof ThreadPoolTaskExecutor pool)) {
+            return ServiceBusyException.DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        double hashSeconds = Math.max(metrics.passwordHash().mean(TimeUnit.SECONDS),
+                Math.max(metrics.passwordMatch(true).mean(TimeUnit.SECONDS),
+                        metrics.passwordMatch(false).mean(TimeUnit.SECONDS)));
+        long drainSeconds = (long) Math.ceil(pool.getQueueSize() * hashSeconds / Math.max(1, pool.getMaxPoolSize()));
+        return Math.max(ServiceBusyException.DEFAULT_RETRY_AFTER_SECONDS, drainSeconds);
+    }
+}
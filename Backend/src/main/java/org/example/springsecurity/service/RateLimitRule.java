@@ -0,0 +1,13 @@
+package org.example.springsecurity.service;
+
+import java.time.Duration;
+
+/**
+ * A token bucket shape: up to {@code capacity} requests in a burst, then one more every {@code refillInterval}.
+ */
+public record RateLimitRule(int capacity, Duration refillInterval) {
+
+    public long refillIntervalNanos() {
+        return refillInterval.toNanos();
+    }
+}
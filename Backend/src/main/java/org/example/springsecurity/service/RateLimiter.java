@@ -0,0 +1,11 @@
+package org.example.springsecurity.service;
+
+/**
+ * Admission check behind {@link org.example.springsecurity.config.RateLimitFilter}. Selected with
+ * {@code rate-limit.mode}: {@code local} (per-node token buckets) or {@code redis} (shared sliding windows).
+ */
+public interface RateLimiter {
+
+    // Returns 0 when the request is allowed, otherwise the nanoseconds the caller should wait before retrying
+    long tryAcquire(String key, RateLimitRule rule);
+}
@@ -0,0 +1,248 @@
+package org.example.springsecurity.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide limiter: every replica counts into the same Redis keys, using the sliding-window
+ * approximation (previous window weighted by how much of it still overlaps, plus the current window).
+ * A rule of {@code capacity} per {@code refillInterval} becomes {@code capacity} requests per
+ * {@code capacity * refillInterval} window.
+ *
+ * <p>To avoid a network hop per request, each node keeps a near-cache of the last counts it saw. While a key has
+ * more than {@code rate-limit.redis.sync-margin} requests of headroom and its counts are fresher than
+ * {@code max-staleness}, requests are admitted locally and their increments are flushed in one pipeline every
+ * {@code flush-interval-ms}. Close to the limit every request goes to Redis, so small limits such as per-email OTP
+ * issuance stay exact. If Redis fails, the node falls back to {@link TokenBucketRateLimiter} for
+ * {@code retry-interval} before trying again.
+ */
+@Component
+@Primary
+@Slf4j
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "redis")
+public class RedisSlidingWindowRateLimiter implements RateLimiter {
+
+    // KEYS: current window, previous window; ARGV: increments already admitted locally, limit,
+    // elapsed fraction of the current window, window length in ms. Returns {admitted, previous, current}
+    private static final RedisScript<List> ACQUIRE = new DefaultRedisScript<>(
+            "local current = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "redis.call('PEXPIRE', KEYS[1], 2 * tonumber(ARGV[4])) " +
+            "local previous = tonumber(redis.call('GET', KEYS[2]) or '0') " +
+            "if previous * (1 - tonumber(ARGV[3])) + current + 1 <= tonumber(ARGV[2]) then " +
+            "  current = redis.call('INCR', KEYS[1]) " +
+            "  return {1, previous, current} " +
+            "end " +
+            "return {0, previous, current}", List.class);
+
+    private final StringRedisTemplate redis;
+    private final TokenBucketRateLimiter fallback;
+    private final Cache<String, Window> nearCache;
+    private final long maxStalenessMillis;
+    private final int syncMargin;
+    private final long retryIntervalMillis;
+    private final LongSupplier clock;
+
+    private volatile long unavailableUntil;
+
+    @Autowired
+    public RedisSlidingWindowRateLimiter(StringRedisTemplate redis,
+                                         TokenBucketRateLimiter fallback,
+                                         @Value("${rate-limit.max-buckets:100000}") long maxKeys,
+                                         @Value("${rate-limit.redis.max-staleness:PT0.5S}") Duration maxStaleness,
+                                         @Value("${rate-limit.redis.sync-margin:2}") int syncMargin,
+                                         @Value("${rate-limit.redis.retry-interval:PT5S}") Duration retryInterval) {
+        this(redis, fallback, maxKeys, maxStaleness, syncMargin, retryInterval, System::currentTimeMillis);
+    }
+
+    RedisSlidingWindowRateLimiter(StringRedisTemplate redis, TokenBucketRateLimiter fallback, long maxKeys,
+                                  Duration maxStaleness, int syncMargin, Duration retryInterval, LongSupplier clock) {
+        this.redis = redis;
+        this.fallback = fallback;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(15))
+                .build();
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.syncMargin = syncMargin;
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimitRule rule) {
+        long now = clock.getAsLong();
+        if (now < unavailableUntil) {
+            return fallback.tryAcquire(key, rule);
+        }
+
+        long windowMillis = rule.capacity() * rule.refillInterval().toMillis();
+        long index = now / windowMillis;
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        Window window = nearCache.get(key, k -> new Window(k, windowMillis));
+
+        window.lock.lock();
+        try {
+            window.rollTo(index);
+            if (window.syncedAt > 0 && now - window.syncedAt <= maxStalenessMillis
+                    && window.estimate(elapsed) + 1 + syncMargin <= rule.capacity()) {
+                window.pending++;
+                return 0;
+            }
+            return acquireRemotely(window, rule, index, elapsed, now);
+        } catch (RuntimeException e) {
+            markUnavailable(e);
+            return fallback.tryAcquire(key, rule);
+        } finally {
+            window.lock.unlock();
+        }
+    }
+
+    // Called with the window's lock held; also pushes the key's pending local increments
+    private long acquireRemotely(Window window, RateLimitRule rule, long index, double elapsed, long now) {
+        List<?> result = redis.execute(ACQUIRE, List.of(window.key(index), window.key(index - 1)),
+                String.valueOf(window.pending), String.valueOf(rule.capacity()),
+                String.valueOf(elapsed), String.valueOf(window.windowMillis));
+        window.pending = 0;
+        window.previous = ((Number) result.get(1)).longValue();
+        window.current = ((Number) result.get(2)).longValue();
+        window.syncedAt = now;
+        if (((Number) result.get(0)).longValue() == 1) {
+            return 0;
+        }
+        return retryAfterNanos(window, rule.capacity(), elapsed);
+    }
+
+    // The previous window's weight fades linearly, so wait until enough of it has rolled off (or the window ends)
+    private static long retryAfterNanos(Window window, int limit, double elapsed) {
+        double room = limit - 1 - window.current;
+        double fractionNeeded = room >= 0 && window.previous > 0 ? 1 - room / window.previous : 1;
+        long waitMillis = (long) Math.ceil(Math.max(fractionNeeded - elapsed, 0) * window.windowMillis);
+        return Duration.ofMillis(Math.max(waitMillis, 1)).toNanos();
+    }
+
+    /**
+     * Sends every key's locally admitted increments in one pipelined round trip and refreshes the cached counts.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.redis.flush-interval-ms:100}")
+    public void flush() {
+        long now = clock.getAsLong();
+        if (now < unavailableUntil) {
+            return;
+        }
+
+        List<Window> dirty = new ArrayList<>();
+        List<long[]> batches = new ArrayList<>();
+        for (Window window : nearCache.asMap().values()) {
+            window.lock.lock();
+            try {
+                if (window.pending > 0) {
+                    dirty.add(window);
+                    batches.add(new long[]{window.index, window.pending});
+                }
+            } finally {
+                window.lock.unlock();
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Object> results;
+        try {
+            results = redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection commands = (StringRedisConnection) connection;
+                for (int i = 0; i < dirty.size(); i++) {
+                    Window window = dirty.get(i);
+                    long index = batches.get(i)[0];
+                    commands.incrBy(window.key(index), batches.get(i)[1]);
+                    commands.pExpire(window.key(index), 2 * window.windowMillis);
+                    commands.get(window.key(index - 1));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            markUnavailable(e);
+            return;
+        }
+
+        for (int i = 0; i < dirty.size(); i++) {
+            Window window = dirty.get(i);
+            long index = batches.get(i)[0];
+            long current = ((Number) results.get(3 * i)).longValue();
+            Object previous = results.get(3 * i + 2);
+            window.lock.lock();
+            try {
+                if (window.index == index) {
+                    window.pending -= batches.get(i)[1];
+                    window.current = current;
+                    window.previous = previous != null ? Long.parseLong(previous.toString()) : 0;
+                    window.syncedAt = now;
+                }
+            } finally {
+                window.lock.unlock();
+            }
+        }
+    }
+
+    private void markUnavailable(RuntimeException e) {
+        if (clock.getAsLong() >= unavailableUntil) {
+            log.warn("Shared rate limit store unavailable, using per-node limits for {} ms: {}",
+                    retryIntervalMillis, e.getMessage());
+        }
+        unavailableUntil = clock.getAsLong() + retryIntervalMillis;
+    }
+
+    private static final class Window {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String key;
+        private final long windowMillis;
+        private long index = -1;
+        private long previous;
+        private long current;
+        private long pending;
+        private long syncedAt;
+
+        Window(String key, long windowMillis) {
+            this.key = key;
+            this.windowMillis = windowMillis;
+        }
+
+        // hash tag keeps both windows of a key in one cluster slot for the script
+        String key(long windowIndex) {
+            return "rate:{" + key + "}:" + windowIndex;
+        }
+
+        void rollTo(long newIndex) {
+            if (newIndex != index) {
+                // increments admitted in the old window are dropped; forcing a sync re-reads both windows
+                previous = newIndex == index + 1 ? current + pending : 0;
+                current = 0;
+                pending = 0;
+                syncedAt = 0;
+                index = newIndex;
+            }
+        }
+
+        double estimate(double elapsed) {
+            return previous * (1 - elapsed) + current + pending;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.springsecurity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.RefreshSession;
+import org.example.springsecurity.model.RefreshToken;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.repo.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. The client gets 32 random bytes; the database only keeps their SHA-256,
+ * which is enough to look a token up (it has far too much entropy to guess) but useless if the table leaks.
+ *
+ * <p>Every refresh marks the presented token used and issues a successor in the same family. Presenting a used
+ * token again means it was copied, so the whole family is revoked and both the thief and the owner have to log
+ * in again. Rows are deleted once they expire, so the table holds roughly one live row per active session plus
+ * the used tokens of the last {@code refresh-token.ttl}.
+ */
+@Service
+@Profile("!reactive")
+@Slf4j
+public class RefreshTokenService {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Value("${refresh-token.ttl:P14D}")
+    private Duration ttl;
+
+    @Value("${refresh-token.max-lifetime:P30D}")
+    private Duration maxLifetime;
+
+    @Value("${refresh-token.cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    @Value("${refresh-token.cleanup.max-batches:50}")
+    private int cleanupMaxBatches;
+
+    public record Rotation(String accessToken, String refreshToken, User user) {
+    }
+
+    // Starts a new family after a completed login
+    public String issue(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return store(userId, UUID.randomUUID().toString(), now, now.plus(maxLifetime));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token: one indexed lookup, the claim
+     * and the insert of the successor. Empty for unknown, expired, revoked or replayed tokens and disabled users.
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String refreshToken) {
+        Optional<RefreshSession> found = refreshTokenRepository.findSession(hash(refreshToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshSession session = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (session.revoked() || !session.expiresAt().isAfter(now) || !session.isEnabled()) {
+            return Optional.empty();
+        }
+        // a used token, or losing the claim to a concurrent request with the same token, is a replay
+        if (session.used() || refreshTokenRepository.claim(session.id()) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(session.familyId());
+            log.warn("Refresh token reuse for user {}, revoked {} token(s) of family {}",
+                    session.username(), revoked, session.familyId());
+            return Optional.empty();
+        }
+
+        String next = store(session.userId(), session.familyId(), now, session.familyExpiresAt());
+        User user = session.toUser();
+        return Optional.of(new Rotation(jwtService.generateToken(user), next, user));
+    }
+
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.revokeFamilyOf(hash(refreshToken));
+    }
+
+    // e.g. after a password change; access tokens are handled by TokenRevocationService
+    public void revokeAllForUser(Long userId) {
+        int revoked = refreshTokenRepository.revokeAllForUser(userId);
+        log.info("Revoked {} refresh token(s) for user id {}", revoked, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${refresh-token.cleanup.interval-ms:600000}")
+    public void deleteExpired() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        for (int batch = 0; batch < cleanupMaxBatches; batch++) {
+            int deleted = refreshTokenRepository.deleteExpiredBatch(cutoff, cleanupBatchSize);
+            if (deleted < cleanupBatchSize) {
+                return;
+            }
+        }
+    }
+
+    private String store(Long userId, String familyId, LocalDateTime now, LocalDateTime familyExpiresAt) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken row = new RefreshToken();
+        row.setTokenHash(hash(token));
+        row.setFamilyId(familyId);
+        row.setUserId(userId);
+        LocalDateTime expiresAt = now.plus(ttl);
+        row.setExpiresAt(expiresAt.isBefore(familyExpiresAt) ? expiresAt : familyExpiresAt);
+        row.setFamilyExpiresAt(familyExpiresAt);
+        row.setCreatedAt(now);
+        refreshTokenRepository.save(row);
+        return token;
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HEX.formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.springsecurity.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over revoked token ids, sized for {@code expectedEntries} at false-positive rate {@code fpp}.
+ * {@link #mightContain} hashes the characters in place and reads the bit words with plain volatile loads, so the
+ * per-request check allocates nothing; a miss proves the id was never added. Entries cannot be removed, so
+ * {@link TokenRevocationService} rebuilds the filter when it prunes expired ids.
+ */
+final class RevocationFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+
+    RevocationFilter(int expectedEntries, double fpp) {
+        int n = Math.max(expectedEntries, 1);
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max((bits + 63) / 64, 1);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max((int) Math.round((double) bitCount / n * Math.log(2)), 1);
+        this.capacity = n;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void put(CharSequence id) {
+        long hash1 = hash(id);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(CharSequence id) {
+        long hash1 = hash(id);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, finished with a 64-bit mixer so both derived hashes use all bits
+    private static long hash(CharSequence id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.springsecurity.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A small pool of authenticated SMTP connections that stay open between sends, so a batch of OTP emails
+ * pays for one connect + STARTTLS + AUTH instead of one per message. Each connection is paced to
+ * {@code mail.pool.max-messages-per-second}. Connections are not probed before a send (isConnected() costs a NOOP
+ * round trip); one idle past {@code mail.pool.max-idle} is reopened, and a send that fails on a connection the
+ * server has dropped is retried once on a fresh one.
+ */
+@Component
+@Slf4j
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> all = new ArrayList<>();
+    private final long minSendIntervalNanos;
+    private final long maxIdleNanos;
+    private final Duration borrowTimeout;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${mail.pool.size:2}") int size,
+                              @Value("${mail.pool.max-messages-per-second:5}") double maxMessagesPerSecond,
+                              @Value("${mail.pool.max-idle:PT1M}") Duration maxIdle,
+                              @Value("${mail.pool.borrow-timeout:PT30S}") Duration borrowTimeout) {
+        this.mailSender = mailSender;
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.minSendIntervalNanos = maxMessagesPerSecond > 0 ? (long) (1_000_000_000L / maxMessagesPerSecond) : 0;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.borrowTimeout = borrowTimeout;
+        for (int i = 0; i < size; i++) {
+            PooledConnection connection = new PooledConnection();
+            all.add(connection);
+            idle.add(connection);
+        }
+    }
+
+    /**
+     * Sends every message over a single pooled connection. Element {@code i} of the result is null when
+     * message {@code i} was accepted by the server, otherwise the exception that rejected it.
+     */
+    public List<Exception> sendBatch(List<MimeMessage> messages) throws InterruptedException {
+        List<Exception> results = new ArrayList<>(messages.size());
+        PooledConnection connection = idle.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (connection == null) {
+            MessagingException timeout = new MessagingException("No SMTP connection available within " + borrowTimeout);
+            messages.forEach(message -> results.add(timeout));
+            return results;
+        }
+        try {
+            for (MimeMessage message : messages) {
+                try {
+                    connection.send(message);
+                    results.add(null);
+                } catch (MessagingException e) {
+                    results.add(e);
+                }
+            }
+        } finally {
+            idle.offer(connection);
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void close() {
+        all.forEach(PooledConnection::close);
+    }
+
+    private class PooledConnection {
+
+        private Transport transport;
+        private long lastUsedNanos;
+        private long nextSendNanos;
+
+        void send(MimeMessage message) throws MessagingException {
+            pace();
+            message.saveChanges();
+            try {
+                connected().sendMessage(message, message.getAllRecipients());
+            } catch (SendFailedException e) {
+                // the server rejected this message's recipients; the connection itself is still good
+                throw e;
+            } catch (MessagingException | IllegalStateException e) {
+                // IllegalStateException: the transport noticed the closed socket before writing
+                log.debug("SMTP connection failed, reconnecting: {}", e.getMessage());
+                close();
+                connected().sendMessage(message, message.getAllRecipients());
+            }
+            lastUsedNanos = System.nanoTime();
+        }
+
+        private Transport connected() throws MessagingException {
+            boolean stale = transport != null && System.nanoTime() - lastUsedNanos > maxIdleNanos;
+            if (stale) {
+                close();
+            }
+            if (transport == null) {
+                String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+                Transport fresh = mailSender.getSession().getTransport(protocol);
+                fresh.connect(mailSender.getHost(), mailSender.getPort(),
+                        mailSender.getUsername(), mailSender.getPassword());
+                transport = fresh;
+                lastUsedNanos = System.nanoTime();
+            }
+            return transport;
+        }
+
+        private void pace() {
+            long wait = nextSendNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            nextSendNanos = Math.max(System.nanoTime(), nextSendNanos) + minSendIntervalNanos;
+        }
+
+        void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    log.debug("Ignoring error while closing SMTP connection: {}", e.getMessage());
+                }
+                transport = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.springsecurity.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process token buckets keyed by arbitrary strings (email, client IP, ...). Keys are spread over a fixed
+ * number of lock stripes so unrelated keys rarely contend. Each stripe holds at most
+ * {@code rate-limit.max-buckets / stripes} entries, so memory stays bounded even under a flood of distinct keys,
+ * and buckets idle for longer than {@code rate-limit.idle-timeout} are swept periodically. A full stripe only
+ * makes room by dropping a bucket that is idle or back at capacity, since a drained bucket would come back full.
+ * Only the few least recently used buckets are checked, keeping the stripe lock short; when none of them can go,
+ * the new key is rejected (counted in {@code auth.ratelimit.stripe.full}) until one frees up.
+ * Also the per-node fallback when the shared limiter's store is unreachable.
+ */
+@Component
+@Slf4j
+public class TokenBucketRateLimiter implements RateLimiter, MeterBinder {
+
+    // least recently used buckets inspected per insert into a full stripe
+    private static final int EVICTION_SCAN_LIMIT = 8;
+
+    private final Stripe[] stripes;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder stripeFullRejections = new LongAdder();
+
+    @Autowired
+    public TokenBucketRateLimiter(@Value("${rate-limit.stripes:64}") int stripeCount,
+                                  @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+                                  @Value("${rate-limit.idle-timeout:PT15M}") Duration idleTimeout) {
+        this(stripeCount, maxBuckets, idleTimeout, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int stripeCount, int maxBuckets, Duration idleTimeout, LongSupplier nanoClock) {
+        int bucketsPerStripe = Math.max(1, maxBuckets / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(bucketsPerStripe);
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes one token from the key's bucket, creating a full bucket on first use.
+     * Returns 0 when the request is allowed, otherwise the nanoseconds until a token becomes available.
+     */
+    @Override
+    public long tryAcquire(String key, RateLimitRule rule) {
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= stripe.maxBuckets && !stripe.evictOne(now, idleTimeoutNanos)) {
+                    stripeFullRejections.increment();
+                    return rule.refillIntervalNanos();
+                }
+                bucket = new Bucket(rule, now);
+                stripe.buckets.put(key, bucket);
+            }
+            return bucket.tryConsume(now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // An idle bucket has refilled anyway (given idle-timeout >= capacity * refill-interval), so dropping it is free
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    if (now - iterator.next().lastUsedNanos > idleTimeoutNanos) {
+                        iterator.remove();
+                        evicted++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate-limit buckets", evicted);
+        }
+    }
+
+    public long stripeFullRejections() {
+        return stripeFullRejections.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.ratelimit.stripe.full", this, TokenBucketRateLimiter::stripeFullRejections)
+                .description("New rate-limit keys rejected because their stripe had no idle or full bucket to evict")
+                .register(registry);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe {
+        // ReentrantLock rather than synchronized so virtual threads don't pin their carrier while waiting
+        private final ReentrantLock lock = new ReentrantLock();
+        // access-ordered, so the scan for an evictable bucket starts with the least recently used
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxBuckets;
+
+        Stripe(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        boolean evictOne(long now, long idleTimeoutNanos) {
+            Iterator<Bucket> iterator = buckets.values().iterator();
+            for (int scanned = 0; scanned < EVICTION_SCAN_LIMIT && iterator.hasNext(); scanned++) {
+                Bucket bucket = iterator.next();
+                if (now - bucket.lastUsedNanos > idleTimeoutNanos || bucket.isFull(now)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Bucket {
+        private final RateLimitRule rule;
+        private double tokens;
+        private long refilledAtNanos;
+        private long lastUsedNanos;
+
+        Bucket(RateLimitRule rule, long now) {
+            this.rule = rule;
+            this.tokens = rule.capacity();
+            this.refilledAtNanos = now;
+            this.lastUsedNanos = now;
+        }
+
+        // a full bucket is indistinguishable from a fresh one, so dropping it cannot hand out extra tokens
+        boolean isFull(long now) {
+            return tokens + (double) (now - refilledAtNanos) / rule.refillIntervalNanos() >= rule.capacity();
+        }
+
+        long tryConsume(long now) {
+            long interval = rule.refillIntervalNanos();
+            tokens = Math.min(rule.capacity(), tokens + (double) (now - refilledAtNanos) / interval);
+            refilledAtNanos = now;
+            lastUsedNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * interval);
+        }
+    }
+}
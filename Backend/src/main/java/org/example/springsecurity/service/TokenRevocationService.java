@@ -0,0 +1,184 @@
+package org.example.springsecurity.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springsecurity.model.RevokedToken;
+import org.example.springsecurity.repo.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens, checked by the JWT filters on every request. Two kinds of entry:
+ * <ul>
+ *     <li>a single token by its {@code jti} (logout), held in an exact set behind a {@link RevocationFilter},
+ *     so the common case of a token that was never revoked is rejected by the Bloom filter alone;</li>
+ *     <li>a per-user "tokens issued before" watermark (password change).</li>
+ * </ul>
+ * Both live in memory; {@link #isRevoked} does map and bit lookups only and allocates nothing.
+ *
+ * <p>Entries are also written to the revoked_tokens table, and every node polls it for rows created since its
+ * last refresh (minus {@code revocation.refresh-lag} for clock skew and slow commits), so a logout on one node
+ * reaches the others within {@code revocation.refresh-interval-ms}. Without JPA (the reactive profile) the list
+ * is node-local.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+
+    private final double fpp;
+    private final Duration refreshLag;
+
+    // only written under the lock; readers go through the volatile filter reference and the concurrent maps
+    private final Object lock = new Object();
+    private volatile RevocationFilter filter;
+    private final Map<String, Instant> revokedIds = new ConcurrentHashMap<>();
+    private final Map<String, Instant> notBefore = new ConcurrentHashMap<>();
+
+    private Instant lastRefresh;
+
+    @Autowired(required = false)
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    public TokenRevocationService(@Value("${revocation.filter.expected-entries:100000}") int expectedEntries,
+                                  @Value("${revocation.filter.fpp:0.001}") double fpp,
+                                  @Value("${revocation.refresh-lag:PT5S}") Duration refreshLag) {
+        this.fpp = fpp;
+        this.refreshLag = refreshLag;
+        this.filter = new RevocationFilter(expectedEntries, fpp);
+    }
+
+    // Loads every entry that can still reject a token before the first request is filtered
+    @PostConstruct
+    void load() {
+        if (revokedTokenRepository == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<RevokedToken> entries = revokedTokenRepository.findByExpiresAtAfter(now);
+        synchronized (lock) {
+            entries.forEach(this::apply);
+            lastRefresh = now;
+        }
+        log.info("Loaded {} token revocation entries", entries.size());
+    }
+
+    // Logout: rejects this one token for the rest of its lifetime
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null) {
+            // tokens minted before ids were added can only be revoked by watermark; their iat is whole seconds,
+            // so the watermark goes past the end of that second
+            revokeTokensIssuedBefore(token.subject(),
+                    token.issuedAt() != null ? token.issuedAt().plusSeconds(1) : Instant.now());
+            return;
+        }
+        RevokedToken entry = new RevokedToken();
+        entry.setJti(token.jti());
+        entry.setExpiresAt(token.expiresAt() != null ? token.expiresAt()
+                : Instant.now().plusMillis(JwtService.TOKEN_VALIDITY_MS));
+        persistAndApply(entry);
+        log.info("Revoked token {} of user: {}", token.jti(), token.subject());
+    }
+
+    // Compared against the millisecond issue time, so a token minted right after a password change stays valid
+    public void revokeTokensIssuedBefore(String username, Instant instant) {
+        Instant watermark = instant.truncatedTo(ChronoUnit.MILLIS);
+        RevokedToken entry = new RevokedToken();
+        entry.setSubject(username);
+        entry.setNotBefore(watermark);
+        entry.setExpiresAt(watermark.plusMillis(JwtService.TOKEN_VALIDITY_MS));
+        persistAndApply(entry);
+        log.info("Revoked tokens issued before {} for user: {}", instant, username);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Instant watermark = notBefore.get(token.subject());
+        if (watermark != null && (token.issuedAt() == null || token.issuedAt().isBefore(watermark))) {
+            return true;
+        }
+        String jti = token.jti();
+        // a filter miss is definite; a hit may be a false positive, so confirm against the exact set
+        return jti != null && filter.mightContain(jti) && revokedIds.containsKey(jti);
+    }
+
+    /**
+     * Applies entries other nodes have written since the last refresh.
+     */
+    @Scheduled(fixedDelayString = "${revocation.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (revokedTokenRepository == null || lastRefresh == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<RevokedToken> entries = revokedTokenRepository.findByCreatedAtGreaterThanEqual(lastRefresh.minus(refreshLag));
+        synchronized (lock) {
+            entries.forEach(this::apply);
+            lastRefresh = now;
+        }
+    }
+
+    // Once every token an entry could reject has expired on its own, the entry is dead weight
+    @Scheduled(fixedRateString = "${revocation.prune-interval-ms:600000}")
+    public void prune() {
+        Instant now = Instant.now();
+        synchronized (lock) {
+            notBefore.values().removeIf(watermark -> watermark.plusMillis(JwtService.TOKEN_VALIDITY_MS).isBefore(now));
+            if (revokedIds.values().removeIf(expiresAt -> expiresAt.isBefore(now))) {
+                rebuildFilter(filter.capacity());
+            }
+        }
+        if (revokedTokenRepository != null) {
+            while (revokedTokenRepository.deleteExpiredBatch(now, CLEANUP_BATCH_SIZE) == CLEANUP_BATCH_SIZE) {
+                // keep deleting in short transactions until a partial batch
+            }
+        }
+    }
+
+    public int revokedTokenCount() {
+        return revokedIds.size();
+    }
+
+    private void persistAndApply(RevokedToken entry) {
+        entry.setCreatedAt(Instant.now());
+        if (revokedTokenRepository != null) {
+            revokedTokenRepository.save(entry);
+        }
+        synchronized (lock) {
+            apply(entry);
+        }
+    }
+
+    // Called with the lock held; the id goes into the exact set before the filter, so a reader that sees
+    // the filter bits also sees the set entry
+    private void apply(RevokedToken entry) {
+        if (entry.getJti() != null) {
+            if (revokedIds.put(entry.getJti(), entry.getExpiresAt()) == null) {
+                filter.put(entry.getJti());
+                // past capacity the false-positive rate climbs, so grow the filter
+                if (revokedIds.size() > filter.capacity()) {
+                    rebuildFilter(filter.capacity() * 2);
+                }
+            }
+        } else if (entry.getSubject() != null && entry.getNotBefore() != null) {
+            notBefore.merge(entry.getSubject(), entry.getNotBefore(),
+                    (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+        }
+    }
+
+    private void rebuildFilter(int capacity) {
+        RevocationFilter rebuilt = new RevocationFilter(capacity, fpp);
+        revokedIds.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+}
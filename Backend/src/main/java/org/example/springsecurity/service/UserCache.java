@@ -0,0 +1,89 @@
+package org.example.springsecurity.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.repo.Userrepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size-bounded (W-TinyLFU) cache of users in front of {@link Userrepo}, reachable by username and by email.
+ * Only hits are cached; a lookup for an unknown user always goes to the database. Hit, miss, eviction and size
+ * metrics for both caches are published as {@code cache.*} meters (cache=users.byUsername / users.byEmail).
+ */
+@Component
+@Profile("!reactive")
+public class UserCache implements MeterBinder {
+
+    private final Userrepo userRepository;
+    private final Cache<String, User> byUsername;
+    private final Cache<String, User> byEmail;
+
+    public UserCache(Userrepo userRepository,
+                     @Value("${user-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${user-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.byUsername = newCache(maximumSize, ttl);
+        this.byEmail = newCache(maximumSize, ttl);
+    }
+
+    private static Cache<String, User> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> findByUsername(String username) {
+        User user = byUsername.get(username, userRepository::findByUsername);
+        if (user != null && user.getEmail() != null) {
+            byEmail.put(user.getEmail(), user);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public Optional<User> findByEmail(String email) {
+        User user = byEmail.get(email, key -> userRepository.findByEmail(key).orElse(null));
+        if (user != null) {
+            byUsername.put(user.getUsername(), user);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    // Drops both keys once the surrounding transaction commits, so a concurrent read can't re-cache the old row
+    public void invalidate(User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(user);
+                }
+            });
+        }
+        evict(user);
+    }
+
+    private void evict(User user) {
+        byUsername.invalidate(user.getUsername());
+        if (user.getEmail() != null) {
+            byEmail.invalidate(user.getEmail());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byUsername, "users.byUsername");
+        CaffeineCacheMetrics.monitor(registry, byEmail, "users.byEmail");
+    }
+}
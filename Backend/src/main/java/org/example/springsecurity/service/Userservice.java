@@ -2,42 +2,97 @@ package org.example.springsecurity.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.springsecurity.dto.RegisterRequest;
+import org.example.springsecurity.exception.DuplicateUserException;
 import org.example.springsecurity.model.User;
+import org.example.springsecurity.model.UserCredentials;
 import org.example.springsecurity.repo.Userrepo;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
+@Profile("!reactive")
 @Slf4j
 public class Userservice {
 
-    private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(12);
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private Userrepo userRepository;
 
-    @Transactional
-    public User createUser(RegisterRequest request) {
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    // Hashing runs on the password hash pool; callers persist the result with createUser/updatePassword
+    public CompletableFuture<String> encodePassword(String rawPassword) {
+        return passwordHasher.encode(rawPassword);
+    }
+
+    // No existence pre-checks: the unique constraints reject duplicates in the same round trip as the insert
+    public User createUser(RegisterRequest request, String encodedPassword) {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(bCryptPasswordEncoder.encode(request.getPassword()));
+        user.setPassword(encodedPassword);
         user.setEmailVerified(false);
         user.setEnabled(true);
         user.setCreatedAt(LocalDateTime.now());
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser(e);
+        }
+        userCache.invalidate(savedUser);
         log.info("User created successfully with email: {}", request.getEmail());
         return savedUser;
     }
 
+    private static RuntimeException duplicateUser(DataIntegrityViolationException e) {
+        String violated = e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                ? violation.getConstraintName()
+                : String.valueOf(e.getMostSpecificCause().getMessage());
+        violated = violated.toLowerCase();
+        if (violated.contains(User.EMAIL_CONSTRAINT)) {
+            return new DuplicateUserException("Email already registered", e);
+        }
+        if (violated.contains(User.USERNAME_CONSTRAINT)) {
+            return new DuplicateUserException("Username already taken", e);
+        }
+        return e;
+    }
+
     public User savUser(User user) {
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        User savedUser = userRepository.save(user);
+        userCache.invalidate(savedUser);
+        return savedUser;
     }
 
     public boolean existsByEmail(String email) {
@@ -54,46 +109,84 @@ public class Userservice {
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
         user.setEmailVerified(true);
         userRepository.save(user);
+        userCache.invalidate(user);
         log.info("Email verified for user: {}", email);
     }
 
-    public boolean validateCredentials(String email, String password) {
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null) {
-            return false;
+    /**
+     * Checks the password against a single credentials fetch that bypasses the user cache, so a password changed
+     * on another node is never checked against a stale hash. Completes with the credentials when the password
+     * matches and empty otherwise; callers use them instead of looking the user up again.
+     */
+    public CompletableFuture<Optional<UserCredentials>> authenticate(String email, String password) {
+        UserCredentials credentials = userRepository.findCredentialsByEmail(email).orElse(null);
+        if (credentials == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
-        return bCryptPasswordEncoder.matches(password, user.getPassword());
+        return passwordHasher.matches(password, credentials.password())
+                .thenApply(matches -> {
+                    if (!matches) {
+                        return Optional.empty();
+                    }
+                    if (passwordEncoder.upgradeEncoding(credentials.password())) {
+                        rehashPassword(credentials.toUser(), password);
+                    }
+                    return Optional.of(credentials);
+                });
+    }
+
+    public Optional<UserCredentials> findCredentialsByEmail(String email) {
+        return userRepository.findCredentialsByEmail(email);
+    }
+
+    // Moves a stored hash to the current encoding after a successful login; best effort, never fails the login
+    private void rehashPassword(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        passwordHasher.encode(rawPassword)
+                .thenAcceptAsync(newHash -> {
+                    if (userRepository.replacePasswordHash(user.getId(), oldHash, newHash) > 0) {
+                        userCache.invalidate(user);
+                        log.info("Password hash re-encoded for user: {}", user.getUsername());
+                    }
+                }, taskExecutor)
+                .exceptionally(e -> {
+                    log.warn("Password rehash skipped for user: {}", user.getUsername(), e);
+                    return null;
+                });
     }
 
     public boolean isEmailVerified(String email) {
-        User user = userRepository.findByEmail(email).orElse(null);
+        User user = userCache.findByEmail(email).orElse(null);
         return user != null && user.isEmailVerified();
     }
 
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
+        return userCache.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
     }
 
     @Transactional
-    public void updatePassword(String email, String newPassword) {
+    public void updatePassword(String email, String encodedPassword) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        user.setPassword(bCryptPasswordEncoder.encode(newPassword));
+        user.setPassword(encodedPassword);
         userRepository.save(user);
+        userCache.invalidate(user);
+        tokenRevocationService.revokeTokensIssuedBefore(user.getUsername(), Instant.now());
+        refreshTokenService.revokeAllForUser(user.getId());
         log.info("Password updated for user: {}", email);
     }
 
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.findByUsername(username).orElse(null);
     }
 
     // Add these missing methods that your controller is calling
     public User findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.findByUsername(username).orElse(null);
     }
 
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email).orElse(null);
+        return userCache.findByEmail(email).orElse(null);
     }
 }
\ No newline at end of file
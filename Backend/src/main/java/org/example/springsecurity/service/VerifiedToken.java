@@ -0,0 +1,37 @@
+package org.example.springsecurity.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked by {@link JwtService#verify(String)}.
+ * Only the values the application needs are copied out, so instances are immutable and safe to share.
+ * {@code roles}, {@code enabled} and {@code emailVerified} are null for tokens minted without principal claims,
+ * {@code jti} for tokens minted before token ids were added. {@code issuedAt} has millisecond precision, except
+ * for tokens minted before the {@code iatMs} claim, where it is the second-precision {@code iat}.
+ */
+public record VerifiedToken(String jti, String subject, Instant issuedAt, Instant expiresAt,
+                            List<String> roles, Boolean enabled, Boolean emailVerified) {
+
+    static VerifiedToken from(Claims claims) {
+        List<?> roles = claims.get(JwtService.ROLES_CLAIM, List.class);
+        Long issuedAtMillis = claims.get(JwtService.ISSUED_AT_MS_CLAIM, Long.class);
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                issuedAtMillis != null ? Instant.ofEpochMilli(issuedAtMillis)
+                        : claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                roles != null ? roles.stream().map(String::valueOf).toList() : null,
+                claims.get(JwtService.ENABLED_CLAIM, Boolean.class),
+                claims.get(JwtService.EMAIL_VERIFIED_CLAIM, Boolean.class)
+        );
+    }
+
+    // true when the token carries everything needed to rebuild the principal without a user lookup
+    public boolean hasPrincipalClaims() {
+        return roles != null && enabled != null && emailVerified != null;
+    }
+}
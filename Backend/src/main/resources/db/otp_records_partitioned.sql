@@ -0,0 +1,28 @@
+-- Range-partitioned layout for otp_records (PostgreSQL 12+), used with otp.cleanup.mode=partitions.
+-- Apply once before starting the application; Hibernate (ddl-auto=update) then sees the table as existing.
+-- Rows are partitioned by expiry_time into daily partitions named otp_records_pYYYYMMDD, which
+-- OtpPartitionMaintenance creates ahead of time and drops once every row in them has expired.
+--
+-- To migrate an existing table:
+--   ALTER TABLE otp_records RENAME TO otp_records_old;
+--   (run this script, start the application once so today's partitions exist)
+--   INSERT INTO otp_records SELECT * FROM otp_records_old WHERE expiry_time > now();
+--   DROP TABLE otp_records_old;
+
+CREATE TABLE otp_records (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email       VARCHAR(255) NOT NULL,
+    otp         VARCHAR(255) NOT NULL,
+    expiry_time TIMESTAMP(6) NOT NULL,
+    used        BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    failed_attempts INTEGER  NOT NULL DEFAULT 0,
+    type        VARCHAR(255) NOT NULL,
+    -- the partition key has to be part of the primary key
+    PRIMARY KEY (id, expiry_time)
+) PARTITION BY RANGE (expiry_time);
+
+CREATE INDEX idx_otp_records_lookup ON otp_records (email, type, used, expiry_time);
+
+-- catches rows outside the pre-created range so inserts never fail
+CREATE TABLE otp_records_default PARTITION OF otp_records DEFAULT;
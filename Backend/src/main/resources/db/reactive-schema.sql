@@ -0,0 +1,26 @@
+-- Tables used by the reactive profile; matches what Hibernate generates for User and OtpRecord.
+CREATE TABLE IF NOT EXISTS users (
+    id             BIGSERIAL PRIMARY KEY,
+    username       VARCHAR(255) NOT NULL,
+    email          VARCHAR(255),
+    password       VARCHAR(255) NOT NULL,
+    email_verified BOOLEAN   DEFAULT false,
+    enabled        BOOLEAN   DEFAULT true,
+    created_at     TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS otp_records (
+    id          BIGSERIAL PRIMARY KEY,
+    email       VARCHAR(255) NOT NULL,
+    otp         VARCHAR(255) NOT NULL,
+    expiry_time TIMESTAMP(6) NOT NULL,
+    used        BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    failed_attempts INTEGER  NOT NULL DEFAULT 0,
+    type        VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_otp_records_lookup ON otp_records (email, type, used, expiry_time);
+CREATE INDEX IF NOT EXISTS idx_otp_records_expiry ON otp_records (expiry_time);
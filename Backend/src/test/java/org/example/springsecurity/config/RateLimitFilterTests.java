@@ -0,0 +1,67 @@
+package org.example.springsecurity.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springsecurity.service.TokenBucketRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitFilterTests {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter(100, Duration.ofSeconds(1), 3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(filter, "rateLimiter", new TokenBucketRateLimiter(4, 1000, Duration.ofMinutes(15)));
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+    }
+
+    @Test
+    void fourthResendForTheSameEmailIsRejectedBeforeTheController() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            send("/auth/resend-otp", "{\"email\":\"A@example.com\",\"type\":\"LOGIN\"}", chain);
+            // the controller still sees the original body
+            assertEquals("{\"email\":\"A@example.com\",\"type\":\"LOGIN\"}",
+                    new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = send("/auth/resend-otp", "{\"email\":\"a@example.com\",\"type\":\"login\"}", chain);
+
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void issueAndVerifyBucketsAreSeparate() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            send("/auth/login", "{\"email\":\"a@example.com\",\"password\":\"secret1\"}", new MockFilterChain());
+        }
+        assertEquals(429, send("/auth/login", "{\"email\":\"a@example.com\",\"password\":\"secret1\"}", new MockFilterChain()).getStatus());
+
+        assertEquals(200, send("/auth/verify-login", "{\"email\":\"a@example.com\",\"otp\":\"123456\"}", new MockFilterChain()).getStatus());
+    }
+
+    private MockHttpServletResponse send(String path, String body, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
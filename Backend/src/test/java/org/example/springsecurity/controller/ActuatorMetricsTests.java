@@ -0,0 +1,84 @@
+package org.example.springsecurity.controller;
+
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.repo.Userrepo;
+import org.example.springsecurity.service.OtpEmailDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Drives a login and checks that the auth timers and executor gauges reach the Prometheus scrape endpoint.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:actuator-metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "password-hashing.bcrypt.strength=4",
+        "otp.cleanup.max-batches=0",
+        "otp.hmac.allow-random-key=true",
+        "jwt.keys.file=target/actuator-metrics/jwt-keys.json"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class ActuatorMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Userrepo userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private OtpEmailDispatcher otpEmailDispatcher;
+
+    @Test
+    void loginShowsUpInPrometheusScrape() throws Exception {
+        User user = new User();
+        user.setUsername("metrics");
+        user.setEmail("metrics@example.com");
+        user.setPassword(passwordEncoder.encode("secret1"));
+        user.setEmailVerified(true);
+        user.setEnabled(true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        MvcResult login = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"metrics@example.com\",\"password\":\"secret1\"}")).andReturn();
+        mockMvc.perform(asyncDispatch(login));
+        mockMvc.perform(post("/auth/verify-login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"metrics@example.com\",\"otp\":\"000000\"}"));
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("auth_password_match_seconds_count{application=\"SpringSecurity\",outcome=\"match\"} 1"), scrape);
+        assertTrue(scrape.contains("auth_otp_issue_seconds_count{application=\"SpringSecurity\",type=\"LOGIN\"} 1"), scrape);
+        assertTrue(scrape.contains("auth_otp_verify_seconds_count{application=\"SpringSecurity\",outcome=\"invalid\",type=\"LOGIN\"} 1"), scrape);
+        assertTrue(scrape.contains("auth_jwt_filter_seconds_count"), scrape);
+        assertTrue(scrape.contains("auth_otp_issue_requests_total{application=\"SpringSecurity\",outcome=\"issued\"} 1"), scrape);
+        assertTrue(scrape.contains("executor_queued_tasks{application=\"SpringSecurity\",name=\"taskExecutor\"}"), scrape);
+        assertTrue(scrape.contains("cache_gets_total{application=\"SpringSecurity\",cache=\"users.byEmail\",result=\"miss\"}"), scrape);
+        assertTrue(scrape.contains("executor_queued_tasks{application=\"SpringSecurity\",name=\"passwordHashExecutor\"}"), scrape);
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.springsecurity.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.model.User;
+import org.example.springsecurity.repo.OtpStore;
+import org.example.springsecurity.repo.Userrepo;
+import org.example.springsecurity.service.OtpEmailDispatcher;
+import org.example.springsecurity.service.OtpHasher;
+import org.example.springsecurity.service.JwtService;
+import org.example.springsecurity.service.RefreshTokenService;
+import org.example.springsecurity.service.TokenRevocationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Pins the number of SQL statements each /auth endpoint issues, so an extra lookup sneaking back into
+ * a flow fails the build. Runs against H2 with Hibernate statistics, which count every statement in the
+ * session factory, so the outbox dispatcher and the task scheduler are mocked: background email delivery,
+ * revocation refreshes and cleanup jobs never run and cannot add to the counts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-query-count;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "password-hashing.bcrypt.strength=4",
+        "otp.cleanup.max-batches=0",
+        "otp.hmac.allow-random-key=true",
+        "jwt.keys.file=target/auth-query-count/jwt-keys.json"
+})
+@AutoConfigureMockMvc
+class AuthControllerQueryCountTests {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Userrepo userRepository;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private OtpHasher otpHasher;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @MockitoBean
+    private OtpEmailDispatcher otpEmailDispatcher;
+
+    @MockitoBean(name = "taskScheduler")
+    private TaskScheduler taskScheduler;
+
+    private Statistics statistics;
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        email = "user" + SEQUENCE.incrementAndGet() + "@example.com";
+    }
+
+    @Test
+    void registerInsertsUserAndIssuesOtp() throws Exception {
+        // INSERT user, invalidate earlier OTPs, INSERT OTP, INSERT outbox row
+        assertStatements(4, "/auth/register",
+                "{\"username\":\"" + username() + "\",\"email\":\"" + email + "\",\"password\":\"secret1\"}");
+    }
+
+    @Test
+    void registerWithTakenEmailStopsAtTheInsert() throws Exception {
+        createUser(true);
+        assertStatements(1, "/auth/register",
+                "{\"username\":\"other" + SEQUENCE.incrementAndGet() + "\",\"email\":\"" + email + "\",\"password\":\"secret1\"}");
+    }
+
+    @Test
+    void loginFetchesCredentialsOnce() throws Exception {
+        createUser(true);
+        // credentials projection, then the three OTP issuance statements
+        assertStatements(4, "/auth/login", "{\"email\":\"" + email + "\",\"password\":\"secret1\"}");
+    }
+
+    @Test
+    void loginWithWrongPasswordIsOneQuery() throws Exception {
+        createUser(true);
+        assertStatements(1, "/auth/login", "{\"email\":\"" + email + "\",\"password\":\"wrong-password\"}");
+    }
+
+    @Test
+    void verifyLoginConsumesOtpAndFetchesCredentials() throws Exception {
+        createUser(true);
+        issueOtp(OtpRecord.OtpType.LOGIN);
+        // live OTP lookup, claim it, credentials projection, INSERT refresh token
+        assertStatements(4, "/auth/verify-login", "{\"email\":\"" + email + "\",\"otp\":\"123456\"}");
+    }
+
+    @Test
+    void verifyRegistration() throws Exception {
+        createUser(false);
+        issueOtp(OtpRecord.OtpType.REGISTRATION);
+        // live OTP lookup, claim it, load user, UPDATE user
+        assertStatements(4, "/auth/verify-registration", "{\"email\":\"" + email + "\",\"otp\":\"123456\"}");
+    }
+
+    @Test
+    void resendOtp() throws Exception {
+        createUser(true);
+        assertStatements(4, "/auth/resend-otp", "{\"email\":\"" + email + "\",\"type\":\"LOGIN\"}");
+    }
+
+    @Test
+    void forgotPassword() throws Exception {
+        createUser(true);
+        assertStatements(4, "/auth/forgot-password", "{\"email\":\"" + email + "\"}");
+    }
+
+    @Test
+    void resetPassword() throws Exception {
+        createUser(true);
+        issueOtp(OtpRecord.OtpType.PASSWORD_RESET);
+        // live OTP lookup, claim it, load user, UPDATE password, INSERT revocation watermark, revoke refresh tokens
+        assertStatements(6, "/auth/reset-password",
+                "{\"email\":\"" + email + "\",\"otp\":\"123456\",\"newPassword\":\"secret2\"}");
+    }
+
+    @Test
+    void refreshIsOneLookupPlusRotation() throws Exception {
+        String refreshToken = refreshTokenService.issue(createUser(true).getId());
+        // token joined with its user, claim it, INSERT successor
+        MvcResult result = assertStatements(3, "/auth/refresh", "{\"refreshToken\":\"" + refreshToken + "\"}");
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    void replayedRefreshTokenRevokesItsFamily() throws Exception {
+        String refreshToken = refreshTokenService.issue(createUser(true).getId());
+        String successor = refreshTokenService.rotate(refreshToken).orElseThrow().refreshToken();
+
+        // lookup finds the used token, revoke the family
+        MvcResult result = assertStatements(2, "/auth/refresh", "{\"refreshToken\":\"" + refreshToken + "\"}");
+        assertEquals(401, result.getResponse().getStatus());
+        assertTrue(refreshTokenService.rotate(successor).isEmpty());
+    }
+
+    @Test
+    void logoutRevokesAccessTokenAndRefreshSession() throws Exception {
+        User user = createUser(true);
+        String accessToken = jwtService.generateToken(user);
+        String refreshToken = refreshTokenService.issue(user.getId());
+
+        // INSERT revoked token, revoke the refresh token's family
+        assertStatements(2, "/auth/logout", post("/auth/logout").header("Authorization", "Bearer " + accessToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+        assertTrue(tokenRevocationService.isRevoked(jwtService.verify(accessToken).orElseThrow()));
+        assertTrue(refreshTokenService.rotate(refreshToken).isEmpty());
+    }
+
+    private MvcResult assertStatements(long expected, String path, String body) throws Exception {
+        return assertStatements(expected, path, post(path).contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private MvcResult assertStatements(long expected, String path, MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                path + " issued an unexpected number of statements; response: " + result.getResponse().getContentAsString());
+        return result;
+    }
+
+    private void issueOtp(OtpRecord.OtpType type) {
+        otpStore.issue(email, type, otpHasher.digest(email, type, "123456"), Duration.ofMinutes(5));
+    }
+
+    private User createUser(boolean emailVerified) {
+        User user = new User();
+        user.setUsername(username());
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("secret1"));
+        user.setEmailVerified(emailVerified);
+        user.setEnabled(true);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private String username() {
+        return email.substring(0, email.indexOf('@'));
+    }
+}
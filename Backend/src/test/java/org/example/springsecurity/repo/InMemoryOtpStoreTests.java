@@ -0,0 +1,83 @@
+package org.example.springsecurity.repo;
+
+import org.example.springsecurity.model.OtpRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryOtpStoreTests {
+
+    private final InMemoryOtpStore store = new InMemoryOtpStore(1000, 512);
+
+    @Test
+    void codeCanOnlyBeConsumedOnce() {
+        store.issue("a@example.com", OtpRecord.OtpType.LOGIN, "123456", Duration.ofMinutes(5));
+
+        assertFalse(consume(store, "a@example.com", "000000"));
+        assertTrue(consume(store, "a@example.com", "123456"));
+        assertFalse(consume(store, "a@example.com", "123456"));
+        assertFalse(store.hasValidOtp("a@example.com", OtpRecord.OtpType.LOGIN));
+    }
+
+    @Test
+    void newCodeInvalidatesPreviousOne() {
+        store.issue("a@example.com", OtpRecord.OtpType.LOGIN, "111111", Duration.ofMinutes(5));
+        store.issue("a@example.com", OtpRecord.OtpType.LOGIN, "222222", Duration.ofMinutes(5));
+
+        assertFalse(consume(store, "a@example.com", "111111"));
+        assertTrue(consume(store, "a@example.com", "222222"));
+    }
+
+    @Test
+    void codesOfDifferentTypesAreIndependent() {
+        store.issue("a@example.com", OtpRecord.OtpType.PASSWORD_RESET, "111111", Duration.ofMinutes(5));
+        store.issue("a@example.com", OtpRecord.OtpType.LOGIN, "222222", Duration.ofMinutes(5));
+
+        assertFalse(consume(store, "a@example.com", OtpRecord.OtpType.LOGIN, "111111"));
+        assertTrue(consume(store, "a@example.com", OtpRecord.OtpType.PASSWORD_RESET, "111111"));
+        assertTrue(consume(store, "a@example.com", OtpRecord.OtpType.LOGIN, "222222"));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.issue("a@example.com", OtpRecord.OtpType.LOGIN, "123456", Duration.ZERO);
+
+        assertFalse(store.hasValidOtp("a@example.com", OtpRecord.OtpType.LOGIN));
+        assertFalse(consume(store, "a@example.com", "123456"));
+    }
+
+    @Test
+    void wheelExpiresEntriesOnlyOnceTheirDeadlinePasses() {
+        InMemoryOtpStore.TimingWheel wheel = new InMemoryOtpStore.TimingWheel(1000, 8, 0);
+        InMemoryOtpStore.Entry soon = new InMemoryOtpStore.Entry("a", "1", OtpRecord.OtpType.LOGIN, 2_500);
+        // further out than one revolution of the 8-slot wheel
+        InMemoryOtpStore.Entry later = new InMemoryOtpStore.Entry("b", "2", OtpRecord.OtpType.LOGIN, 20_000);
+        wheel.schedule(soon);
+        wheel.schedule(later);
+
+        List<InMemoryOtpStore.Entry> expired = new ArrayList<>();
+        assertEquals(0, wheel.advance(2_000, expired::add));
+        assertEquals(1, wheel.advance(3_000, expired::add));
+        assertEquals(0, wheel.advance(12_000, expired::add));
+        assertEquals(1, wheel.advance(20_000, expired::add));
+        assertEquals(List.of(soon, later), expired);
+    }
+
+    private static boolean consume(OtpStore store, String email, String digest) {
+        return consume(store, email, OtpRecord.OtpType.LOGIN, digest);
+    }
+
+    // what OtpService does after comparing digests
+    private static boolean consume(OtpStore store, String email, OtpRecord.OtpType type, String digest) {
+        return store.findActive(email, type)
+                .filter(active -> active.digest().equals(digest))
+                .map(store::markUsed)
+                .orElse(false);
+    }
+}
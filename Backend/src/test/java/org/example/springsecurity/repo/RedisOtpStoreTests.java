@@ -0,0 +1,116 @@
+package org.example.springsecurity.repo;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.example.springsecurity.model.OtpRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs RedisOtpStore against an in-process Redis stand-in (jedis-mock), with two store instances playing two nodes.
+ */
+class RedisOtpStoreTests {
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisOtpStore nodeA;
+    private RedisOtpStore nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        nodeA = new RedisOtpStore(template());
+        nodeB = new RedisOtpStore(template());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void codeIssuedOnOneNodeVerifiesOnAnother() {
+        nodeA.issue("a@example.com", OtpRecord.OtpType.LOGIN, "123456", Duration.ofMinutes(5));
+
+        assertTrue(nodeB.hasValidOtp("a@example.com", OtpRecord.OtpType.LOGIN));
+        assertFalse(consume(nodeB, "a@example.com", "000000"));
+        assertTrue(consume(nodeB, "a@example.com", "123456"));
+        assertFalse(consume(nodeA, "a@example.com", "123456"));
+    }
+
+    @Test
+    void newCodeOnlyInvalidatesEarlierCodesOfTheSameType() {
+        nodeA.issue("a@example.com", OtpRecord.OtpType.REGISTRATION, "111111", Duration.ofMinutes(5));
+        nodeA.issue("a@example.com", OtpRecord.OtpType.LOGIN, "222222", Duration.ofMinutes(5));
+        nodeB.issue("a@example.com", OtpRecord.OtpType.LOGIN, "333333", Duration.ofMinutes(5));
+
+        assertFalse(consume(nodeA, "a@example.com", "222222"));
+        assertTrue(consume(nodeA, "a@example.com", "333333"));
+        assertTrue(consume(nodeB, "a@example.com", OtpRecord.OtpType.REGISTRATION, "111111"));
+    }
+
+    @Test
+    void codeExpiresWithItsTtl() throws Exception {
+        nodeA.issue("a@example.com", OtpRecord.OtpType.LOGIN, "123456", Duration.ofMillis(100));
+        Thread.sleep(300);
+
+        assertFalse(nodeB.hasValidOtp("a@example.com", OtpRecord.OtpType.LOGIN));
+        assertFalse(consume(nodeB, "a@example.com", "123456"));
+    }
+
+    @Test
+    void concurrentVerifiesConsumeTheCodeOnce() throws Exception {
+        nodeA.issue("a@example.com", OtpRecord.OtpType.LOGIN, "123456", Duration.ofMinutes(5));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            int consumed = 0;
+            Callable<Boolean> verifyA = () -> consume(nodeA, "a@example.com", "123456");
+            Callable<Boolean> verifyB = () -> consume(nodeB, "a@example.com", "123456");
+            for (Future<Boolean> result : pool.invokeAll(List.of(verifyA, verifyB, verifyA, verifyB))) {
+                consumed += result.get() ? 1 : 0;
+            }
+            assertEquals(1, consumed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private StringRedisTemplate template() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static boolean consume(OtpStore store, String email, String digest) {
+        return consume(store, email, OtpRecord.OtpType.LOGIN, digest);
+    }
+
+    // what OtpService does after comparing digests
+    private static boolean consume(OtpStore store, String email, OtpRecord.OtpType type, String digest) {
+        return store.findActive(email, type)
+                .filter(active -> active.digest().equals(digest))
+                .map(store::markUsed)
+                .orElse(false);
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.springsecurity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtKeyRingTests {
+
+    private static final Duration ROTATION = Duration.ofDays(7);
+    private static final Duration PROPAGATION = Duration.ofMinutes(2);
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    @TempDir
+    Path dir;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("jwt-keys.json");
+    }
+
+    @Test
+    void tokensSurviveRotationAndTheNewKeySignsOnlyAfterPropagation() {
+        JwtKeyRing ring = ring();
+        JwtService jwt = jwtService(ring);
+        String oldKid = ring.signingKey().kid();
+        String before = jwt.generateToken("alice");
+
+        clock.advance(ROTATION);
+        ring.maintain();
+        assertEquals(2, ring.keys().size());
+        assertEquals(oldKid, ring.signingKey().kid());
+
+        clock.advance(PROPAGATION);
+        assertNotEquals(oldKid, ring.signingKey().kid());
+        assertTrue(jwt.verify(before).isPresent());
+        assertTrue(jwt.verify(jwt.generateToken("alice")).isPresent());
+    }
+
+    @Test
+    void replicasSharingTheFileAcceptEachOthersTokens() {
+        JwtKeyRing first = ring();
+        JwtKeyRing second = ring();
+        JwtService firstJwt = jwtService(first);
+        JwtService secondJwt = jwtService(second);
+        assertEquals(first.signingKey().kid(), second.signingKey().kid());
+
+        clock.advance(ROTATION);
+        first.maintain();
+        clock.advance(PROPAGATION);
+
+        // second has not run maintain yet; the unknown kid makes it reload the file
+        String rotated = firstJwt.generateToken("alice");
+        assertTrue(secondJwt.verify(rotated).isPresent());
+        assertTrue(firstJwt.verify(secondJwt.generateToken("bob")).isPresent());
+
+        // the other replica sees the fresh key and does not rotate again
+        second.maintain();
+        assertEquals(2, second.keys().size());
+    }
+
+    @Test
+    void restartKeepsIssuedTokensValid() {
+        String token = jwtService(ring()).generateToken("alice");
+
+        assertTrue(jwtService(ring()).verify(token).isPresent());
+    }
+
+    @Test
+    void retiredKeyIsDroppedOnceRetentionHasPassed() {
+        JwtKeyRing ring = ring();
+        JwtService jwt = jwtService(ring);
+        String old = jwt.generateToken("alice");
+
+        clock.advance(ROTATION);
+        ring.maintain();
+        clock.advance(PROPAGATION.plus(RETENTION));
+        ring.maintain();
+
+        assertEquals(1, ring.keys().size());
+        assertTrue(jwt.verify(old).isEmpty());
+        assertEquals(1, ring().keys().size());
+    }
+
+    @Test
+    void tokensWithoutAKnownKidAreRejected() {
+        JwtService jwt = jwtService(ring());
+        String token = jwt.generateToken("alice");
+
+        dir.resolve("other").toFile().mkdirs();
+        JwtKeyRing otherRing = new JwtKeyRing(dir.resolve("other").resolve("jwt-keys.json"), SignatureAlgorithm.HS256,
+                ROTATION, PROPAGATION, RETENTION, new ObjectMapper(), clock);
+        assertTrue(jwtService(otherRing).verify(token).isEmpty());
+    }
+
+    @Test
+    void es256TokensVerifyWithThePublishedJwk() throws Exception {
+        JwtKeyRing ring = ring(SignatureAlgorithm.ES256);
+        String token = jwtService(ring).generateToken("alice");
+
+        List<?> keys = (List<?>) ring.jwks().get("keys");
+        assertEquals(1, keys.size());
+        Map<?, ?> jwk = (Map<?, ?>) keys.get(0);
+        assertEquals(ring.signingKey().kid(), jwk.get("kid"));
+        assertEquals("alice", Jwts.parserBuilder().setSigningKey(ecPublicKey(jwk)).build()
+                .parseClaimsJws(token).getBody().getSubject());
+
+        // an HMAC secret is never published
+        file = dir.resolve("hs256.json");
+        assertTrue(((List<?>) ring().jwks().get("keys")).isEmpty());
+    }
+
+    @Test
+    void switchingAlgorithmRotatesWithoutInvalidatingTokens() {
+        String hs256Token = jwtService(ring()).generateToken("alice");
+
+        JwtKeyRing ring = ring(SignatureAlgorithm.ES256);
+        JwtService jwt = jwtService(ring);
+        ring.maintain();
+        assertEquals(SignatureAlgorithm.HS256, ring.signingKey().algorithm());
+        assertEquals(1, ((List<?>) ring.jwks().get("keys")).size());
+
+        clock.advance(PROPAGATION);
+        assertEquals(SignatureAlgorithm.ES256, ring.signingKey().algorithm());
+        assertTrue(jwt.verify(hs256Token).isPresent());
+        assertTrue(jwt.verify(jwt.generateToken("alice")).isPresent());
+    }
+
+    @Test
+    void hmacTokenNamingAnEcKeyIsRejected() {
+        JwtKeyRing ring = ring(SignatureAlgorithm.ES256);
+        JwtKeyRing.SigningKey ecKey = ring.signingKey();
+        String forged = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, ecKey.kid())
+                .setSubject("mallory")
+                .signWith(Keys.hmacShaKeyFor(ecKey.verificationKey().getEncoded()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtService(ring).verify(forged).isEmpty());
+    }
+
+    private JwtKeyRing ring() {
+        return ring(SignatureAlgorithm.HS256);
+    }
+
+    private JwtKeyRing ring(SignatureAlgorithm algorithm) {
+        return new JwtKeyRing(file, algorithm, ROTATION, PROPAGATION, RETENTION, new ObjectMapper(), clock);
+    }
+
+    private static PublicKey ecPublicKey(Map<?, ?> jwk) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECPoint point = new ECPoint(new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("x"))),
+                new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("y"))));
+        return KeyFactory.getInstance("EC").generatePublic(
+                new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+
+    private static JwtService jwtService(JwtKeyRing ring) {
+        JwtService jwtService = new JwtService(ring);
+        ReflectionTestUtils.setField(jwtService, "metrics", new AuthMetrics(new SimpleMeterRegistry()));
+        return jwtService;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.springsecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springsecurity.model.OtpRecord;
+import org.example.springsecurity.repo.InMemoryOtpStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OtpServiceTests {
+
+    private static final String EMAIL = "a@example.com";
+
+    private final OtpHasher otpHasher = new OtpHasher("", "jdbc", true);
+    private final OtpIssueCooldown issueCooldown = new OtpIssueCooldown(Duration.ofSeconds(30), 1000);
+    private final EmailOutboxService emailOutbox = mock(EmailOutboxService.class);
+    private InMemoryOtpStore otpStore;
+    private OtpService otpService;
+
+    @BeforeEach
+    void setUp() {
+        otpStore = spy(new InMemoryOtpStore(1000, 64));
+        otpService = new OtpService();
+        ReflectionTestUtils.setField(otpService, "otpStore", otpStore);
+        ReflectionTestUtils.setField(otpService, "attemptTracker", new OtpAttemptTracker(3, Duration.ofMinutes(5), 1000));
+        ReflectionTestUtils.setField(otpService, "otpHasher", otpHasher);
+        ReflectionTestUtils.setField(otpService, "issueCooldown", issueCooldown);
+        ReflectionTestUtils.setField(otpService, "emailOutboxService", emailOutbox);
+        ReflectionTestUtils.setField(otpService, "metrics", new AuthMetrics(new SimpleMeterRegistry()));
+        issue("123456");
+    }
+
+    @Test
+    void codeIsInvalidatedAfterMaxFailuresAndFurtherCallsSkipTheStore() {
+        for (int i = 0; i < 3; i++) {
+            assertFalse(otpService.verifyOtp(EMAIL, "000000", OtpRecord.OtpType.LOGIN));
+        }
+        verify(otpStore).invalidate(EMAIL, OtpRecord.OtpType.LOGIN);
+        assertFalse(otpStore.hasValidOtp(EMAIL, OtpRecord.OtpType.LOGIN));
+
+        // even the right code is refused, without another store lookup
+        assertFalse(otpService.verifyOtp(EMAIL, "123456", OtpRecord.OtpType.LOGIN));
+        verify(otpStore, times(3)).findActive(anyString(), any());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        assertFalse(otpService.verifyOtp(EMAIL, "000000", OtpRecord.OtpType.LOGIN));
+        assertFalse(otpService.verifyOtp(EMAIL, "000001", OtpRecord.OtpType.LOGIN));
+        assertTrue(otpService.verifyOtp(EMAIL, "123456", OtpRecord.OtpType.LOGIN));
+
+        issue("654321");
+        assertFalse(otpService.verifyOtp(EMAIL, "000000", OtpRecord.OtpType.LOGIN));
+        assertTrue(otpService.verifyOtp(EMAIL, "654321", OtpRecord.OtpType.LOGIN));
+        verify(otpStore, never()).invalidate(any(), any());
+    }
+
+    @Test
+    void storeOnlySeesTheDigest() {
+        String stored = otpStore.findActive(EMAIL, OtpRecord.OtpType.LOGIN).orElseThrow().digest();
+        assertNotEquals("123456", stored);
+        assertTrue(otpHasher.matches(EMAIL, OtpRecord.OtpType.LOGIN, "123456", stored));
+        // bound to the email and type it was issued for
+        assertFalse(otpHasher.matches("b@example.com", OtpRecord.OtpType.LOGIN, "123456", stored));
+        assertFalse(otpHasher.matches(EMAIL, OtpRecord.OtpType.REGISTRATION, "123456", stored));
+    }
+
+    @Test
+    void loginCodeCannotCompleteAPasswordResetAndDoesNotCancelIt() {
+        issue(OtpRecord.OtpType.PASSWORD_RESET, "222222");
+        issue("333333");
+
+        assertFalse(otpService.verifyOtp(EMAIL, "333333", OtpRecord.OtpType.PASSWORD_RESET));
+        assertTrue(otpService.verifyOtp(EMAIL, "222222", OtpRecord.OtpType.PASSWORD_RESET));
+        assertTrue(otpService.verifyOtp(EMAIL, "333333", OtpRecord.OtpType.LOGIN));
+    }
+
+    @Test
+    void repeatedSendWithinCooldownKeepsTheLiveCode() {
+        otpService.sendOtp("b@example.com", OtpRecord.OtpType.LOGIN);
+        otpService.sendOtp("b@example.com", OtpRecord.OtpType.LOGIN);
+        // other types have their own cooldown
+        otpService.sendOtp("b@example.com", OtpRecord.OtpType.PASSWORD_RESET);
+
+        ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+        verify(emailOutbox).enqueue(eq("b@example.com"), code.capture(), eq("login"));
+        verify(emailOutbox).enqueue(eq("b@example.com"), anyString(), eq("password reset"));
+        assertEquals(1, issueCooldown.suppressedCount());
+
+        // once the code is used, the next login gets a new one straight away
+        assertTrue(otpService.verifyOtp("b@example.com", code.getValue(), OtpRecord.OtpType.LOGIN));
+        otpService.sendOtp("b@example.com", OtpRecord.OtpType.LOGIN);
+        verify(emailOutbox, times(2)).enqueue(eq("b@example.com"), anyString(), eq("login"));
+    }
+
+    private void issue(String otp) {
+        issue(OtpRecord.OtpType.LOGIN, otp);
+    }
+
+    private void issue(OtpRecord.OtpType type, String otp) {
+        otpStore.issue(EMAIL, type, otpHasher.digest(EMAIL, type, otp), Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.springsecurity.service;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the shared limiter against an in-process Redis stand-in (jedis-mock), with two limiter instances as two nodes.
+ */
+class RedisSlidingWindowRateLimiterTests {
+
+    private static final RateLimitRule OTP_ISSUE = new RateLimitRule(3, Duration.ofMinutes(1));
+    private static final RateLimitRule PER_IP = new RateLimitRule(100, Duration.ofSeconds(1));
+
+    // middle of a window, far from any boundary
+    private final AtomicLong clock = new AtomicLong(Duration.ofDays(1).toMillis() + 1);
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(500)).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void limitIsSharedAcrossNodes() {
+        RedisSlidingWindowRateLimiter nodeA = node();
+        RedisSlidingWindowRateLimiter nodeB = node();
+
+        assertEquals(0, nodeA.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE));
+        assertEquals(0, nodeB.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE));
+        assertEquals(0, nodeA.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE));
+
+        assertTrue(nodeB.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE) > 0);
+        assertTrue(nodeA.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE) > 0);
+    }
+
+    @Test
+    void requestsWithHeadroomAreCountedLocallyAndFlushedInBatches() {
+        RedisSlidingWindowRateLimiter node = node();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, node.tryAcquire("ip:10.0.0.1", PER_IP));
+        }
+        String counter = redis.keys("rate:{ip:10.0.0.1}:*").iterator().next();
+        // only the first request went to Redis
+        assertEquals("1", redis.opsForValue().get(counter));
+
+        node.flush();
+        assertEquals("10", redis.opsForValue().get(counter));
+    }
+
+    @Test
+    void fallsBackToLocalBucketsWhenTheStoreIsDown() throws Exception {
+        RedisSlidingWindowRateLimiter node = node();
+        server.stop();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, node.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE));
+        }
+        assertTrue(node.tryAcquire("ISSUE:LOGIN:a@example.com", OTP_ISSUE) > 0);
+        server = RedisServer.newRedisServer().start();
+    }
+
+    private RedisSlidingWindowRateLimiter node() {
+        return new RedisSlidingWindowRateLimiter(redis, new TokenBucketRateLimiter(4, 1000, Duration.ofMinutes(15)),
+                1000, Duration.ofSeconds(5), 2, Duration.ofSeconds(5), clock::get);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.springsecurity.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmtpConnectionPoolTests {
+
+    private GreenMail smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        smtpServer = new GreenMail(ServerSetupTest.SMTP);
+        smtpServer.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        pool = new SmtpConnectionPool(mailSender, 2, 0, Duration.ofMinutes(1), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        smtpServer.stop();
+    }
+
+    @Test
+    void sendsWholeBatchOverPooledConnection() throws Exception {
+        List<Exception> errors = pool.sendBatch(messages(10));
+
+        errors.forEach(Assertions::assertNull);
+        assertEquals(10, smtpServer.getReceivedMessages().length);
+    }
+
+    @Test
+    void reconnectsAfterServerDropsConnection() throws Exception {
+        pool.sendBatch(messages(1));
+
+        // restarting the server kills the pooled connection behind the pool's back
+        smtpServer.stop();
+        smtpServer = new GreenMail(ServerSetupTest.SMTP);
+        smtpServer.start();
+
+        List<Exception> errors = pool.sendBatch(messages(3));
+
+        errors.forEach(Assertions::assertNull);
+        assertEquals(3, smtpServer.getReceivedMessages().length);
+    }
+
+    @Test
+    void pacesMessagesPerConnection() throws Exception {
+        SmtpConnectionPool paced = new SmtpConnectionPool(mailSender, 1, 20, Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            long start = System.nanoTime();
+            paced.sendBatch(messages(5));
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            // 20 msg/s means at least 50 ms between consecutive sends
+            assertEquals(5, smtpServer.getReceivedMessages().length);
+            assertTrue(elapsedMillis >= 4 * 50, "elapsed " + elapsedMillis + " ms");
+        } finally {
+            paced.close();
+        }
+    }
+
+    private List<MimeMessage> messages(int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("noreply@example.com"));
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Your OTP Code");
+            message.setText("Your OTP code for login is: 12345" + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.springsecurity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTests {
+
+    private static final RateLimitRule THREE_PER_MINUTE = new RateLimitRule(3, Duration.ofSeconds(20));
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void burstUpToCapacityThenWaitsForRefill() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4, 1000, Duration.ofMinutes(15), clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("a@example.com", THREE_PER_MINUTE));
+        }
+        assertEquals(Duration.ofSeconds(20).toNanos(), limiter.tryAcquire("a@example.com", THREE_PER_MINUTE));
+        // other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("b@example.com", THREE_PER_MINUTE));
+
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertEquals(0, limiter.tryAcquire("a@example.com", THREE_PER_MINUTE));
+        assertTrue(limiter.tryAcquire("a@example.com", THREE_PER_MINUTE) > 0);
+    }
+
+    @Test
+    void idleBucketsAreEvicted() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4, 1000, Duration.ofMinutes(15), clock::get);
+        limiter.tryAcquire("a@example.com", THREE_PER_MINUTE);
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        limiter.tryAcquire("b@example.com", THREE_PER_MINUTE);
+
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+        limiter.evictIdleBuckets();
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void bucketCountStaysBoundedUnderDistinctKeys() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4, 100, Duration.ofMinutes(15), clock::get);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("user" + i + "@example.com", THREE_PER_MINUTE);
+        }
+        assertTrue(limiter.size() <= 100);
+    }
+
+    @Test
+    void floodOfNewKeysDoesNotResetADrainedBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 10, Duration.ofMinutes(15), clock::get);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("victim@example.com", THREE_PER_MINUTE);
+        }
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("flood" + i + "@example.com", THREE_PER_MINUTE);
+        }
+
+        assertTrue(limiter.tryAcquire("victim@example.com", THREE_PER_MINUTE) > 0);
+        // with the stripe full of partly drained buckets, a new key is turned away rather than making room
+        assertTrue(limiter.tryAcquire("newcomer@example.com", THREE_PER_MINUTE) > 0);
+        assertEquals(92, limiter.stripeFullRejections());
+
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertEquals(0, limiter.tryAcquire("newcomer@example.com", THREE_PER_MINUTE));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.springsecurity.service;
+
+import org.example.springsecurity.model.RevokedToken;
+import org.example.springsecurity.repo.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTests {
+
+    private final TokenRevocationService revocations = new TokenRevocationService(1000, 0.001, Duration.ofSeconds(5));
+
+    @Test
+    void revokedTokenIsRejectedAndOthersAreNot() {
+        VerifiedToken revoked = token("alice", Instant.now());
+        VerifiedToken other = token("alice", Instant.now());
+
+        revocations.revoke(revoked);
+
+        assertTrue(revocations.isRevoked(revoked));
+        assertFalse(revocations.isRevoked(other));
+    }
+
+    @Test
+    void watermarkRejectsOnlyTokensIssuedBeforeIt() {
+        Instant now = Instant.now();
+        revocations.revokeTokensIssuedBefore("alice", now);
+
+        assertTrue(revocations.isRevoked(token("alice", now.minusSeconds(10))));
+        assertTrue(revocations.isRevoked(token("alice", now.minusMillis(1))));
+        // minted later in the same second, e.g. the login right after a password reset
+        assertFalse(revocations.isRevoked(token("alice", now.plusMillis(1))));
+        assertFalse(revocations.isRevoked(token("alice", now.plusSeconds(2))));
+        assertFalse(revocations.isRevoked(token("bob", now.minusSeconds(10))));
+    }
+
+    @Test
+    void filterGrowsPastItsExpectedSizeWithoutLosingEntries() {
+        TokenRevocationService small = new TokenRevocationService(4, 0.01, Duration.ofSeconds(5));
+        List<VerifiedToken> tokens = IntStream.range(0, 100)
+                .mapToObj(i -> token("user" + i, Instant.now()))
+                .toList();
+        tokens.forEach(small::revoke);
+
+        tokens.forEach(token -> assertTrue(small.isRevoked(token)));
+        assertFalse(small.isRevoked(token("user1", Instant.now())));
+    }
+
+    @Test
+    void pruneDropsEntriesWhoseTokensHaveExpired() {
+        VerifiedToken expired = new VerifiedToken(UUID.randomUUID().toString(), "alice",
+                Instant.now().minusSeconds(600), Instant.now().minusSeconds(420), null, null, null);
+        VerifiedToken live = token("alice", Instant.now());
+        revocations.revoke(expired);
+        revocations.revoke(live);
+
+        revocations.prune();
+
+        assertEquals(1, revocations.revokedTokenCount());
+        assertTrue(revocations.isRevoked(live));
+    }
+
+    @Test
+    void refreshAppliesEntriesWrittenByOtherNodes() {
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        ReflectionTestUtils.setField(revocations, "revokedTokenRepository", repository);
+        revocations.load();
+
+        VerifiedToken token = token("alice", Instant.now());
+        RevokedToken remote = new RevokedToken(1L, token.jti(), null, null, token.expiresAt(), Instant.now());
+        when(repository.findByCreatedAtGreaterThanEqual(any())).thenReturn(List.of(remote));
+        assertFalse(revocations.isRevoked(token));
+
+        revocations.refresh();
+
+        assertTrue(revocations.isRevoked(token));
+    }
+
+    private static VerifiedToken token(String subject, Instant issuedAt) {
+        return new VerifiedToken(UUID.randomUUID().toString(), subject, issuedAt,
+                issuedAt.plusMillis(JwtService.TOKEN_VALIDITY_MS), null, null, null);
+    }
+}
@@ -11,6 +11,7 @@ export interface LoginRequest {
 
 export interface LoginResponse {
   token: string
+  refreshToken: string
   user: {
     id: number
     username: string
@@ -41,9 +42,13 @@ export interface ResetPasswordRequest {
   newPassword: string
 }
 
+export interface RefreshRequest {
+  refreshToken: string
+}
+
 export interface ResendOtpRequest {
   email: string
-  type: "LOGIN" | "REGISTRATION"
+  type: "LOGIN" | "REGISTRATION" | "PASSWORD_RESET"
 }
 
 class ApiClient {
@@ -110,6 +115,22 @@ class ApiClient {
     })
   }
 
+  // Single use: store the refreshToken from the response in place of the one sent
+  async refresh(data: RefreshRequest): Promise<ApiResponse<LoginResponse>> {
+    return this.request("/auth/refresh", {
+      method: "POST",
+      body: JSON.stringify(data),
+    })
+  }
+
+  // Revokes the current access token and, when given, the refresh token's session
+  async logout(refreshToken?: string): Promise<ApiResponse<string>> {
+    return this.request("/auth/logout", {
+      method: "POST",
+      body: JSON.stringify({ refreshToken }),
+    })
+  }
+
   async resendOtp(data: ResendOtpRequest): Promise<ApiResponse<string>> {
     return this.request("/auth/resend-otp", {
       method: "POST",